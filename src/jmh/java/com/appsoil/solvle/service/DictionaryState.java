@@ -0,0 +1,90 @@
+package com.appsoil.solvle.service;
+
+import com.appsoil.solvle.config.DictionaryType;
+import com.appsoil.solvle.config.SolvleConfig;
+import com.appsoil.solvle.data.CharacterCounts;
+import com.appsoil.solvle.data.Dictionary;
+import com.appsoil.solvle.data.Word;
+import com.appsoil.solvle.data.WordIndex;
+import com.appsoil.solvle.data.WordRestrictions;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Shared setup for the benchmarks: loads the dictionaries once per fork and builds the services directly, without
+ * Spring, so nothing is served from the result caches. Mid-game positions are generated by scoring evenly spaced
+ * guesses against evenly spaced solutions from the primary set, so every dictionary gets comparable states.
+ */
+@State(Scope.Benchmark)
+public class DictionaryState {
+
+    static final int SAMPLE_STATES = 16;
+
+    @Param({"SIMPLE", "BIG", "ICELANDIC"})
+    public DictionaryType dictionaryType;
+
+    @Param({"OPTIMAL_MEAN_WITH_PARTITIONING", "SIMPLE"})
+    public WordConfig wordConfig;
+
+    SolvleService solvleService;
+    WordCalculationService wordCalculationService;
+    Set<Word> primarySet;
+    Set<Word> fishingSet;
+    WordIndex wordIndex;
+    List<Word> solutions;
+    List<WordRestrictions> restrictions;
+    List<Set<Word>> containedWords;
+    List<CharacterCounts> positionCounts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<DictionaryType, Dictionary> dictionaries = new SolvleConfig().allDictionaries();
+        solvleService = new SolvleService(dictionaries);
+        primarySet = solvleService.getPrimarySet(dictionaryType);
+        fishingSet = solvleService.getFishingSet(dictionaryType);
+        wordCalculationService = new WordCalculationService(wordConfig.config, solvleService.getFeedbackMatrix(dictionaryType));
+        wordIndex = new WordIndex(primarySet);
+
+        solutions = sample(primarySet, SAMPLE_STATES, 0);
+        List<Word> guesses = sample(primarySet, SAMPLE_STATES, primarySet.size() / (2 * SAMPLE_STATES));
+        restrictions = new ArrayList<>();
+        for (int i = 0; i < SAMPLE_STATES; i++) {
+            restrictions.add(WordRestrictions.generateRestrictions(solutions.get(i), guesses.get(i), WordRestrictions.noRestrictions()));
+        }
+        containedWords = restrictions.stream().map(r -> wordCalculationService.findMatchingWords(primarySet, r)).toList();
+        positionCounts = containedWords.stream().map(wordCalculationService::calculateCharacterCountsByPosition).toList();
+    }
+
+    /**
+     * @return count words from the set, evenly spaced in dictionary order and starting at the offset
+     */
+    static List<Word> sample(Set<Word> words, int count, int offset) {
+        List<Word> all = new ArrayList<>(words);
+        List<Word> sample = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sample.add(all.get((offset + i * all.size() / count) % all.size()));
+        }
+        return sample;
+    }
+
+    /**
+     * Walks through the sample states so consecutive invocations don't measure the same input.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position;
+
+        int next(int size) {
+            position = (position + 1) % size;
+            return position;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.appsoil.solvle.service;
+
+import com.appsoil.solvle.data.Word;
+import com.appsoil.solvle.data.WordRestrictions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Restriction parsing and the word filtering that runs at the start of every analysis request.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RestrictionsBenchmark {
+
+    private static final String[] RESTRICTION_STRINGS = {
+            "abcdefghijklmnopqrstuvwxyz",
+            "abcdefghijklmnopqstuvwxyzr!1e!2",
+            "bcdfghjklmnopqstuvwxyza1!3e!2!5r^2",
+            "bdfghjkmopquvwxyza1l2e!3!5st!4",
+            "a1b2c3defghijklmnopqrstuvwxyz",
+    };
+
+    @Benchmark
+    public WordRestrictions parseRestrictions(DictionaryState.Cursor cursor) {
+        return new WordRestrictions(RESTRICTION_STRINGS[cursor.next(RESTRICTION_STRINGS.length)]);
+    }
+
+    @Benchmark
+    public WordRestrictions canonicalRestrictions(DictionaryState.Cursor cursor) {
+        return new WordRestrictions(RESTRICTION_STRINGS[cursor.next(RESTRICTION_STRINGS.length)]).canonical();
+    }
+
+    @Benchmark
+    public Set<Word> findMatchingWords(DictionaryState state, DictionaryState.Cursor cursor) {
+        WordRestrictions restrictions = state.restrictions.get(cursor.next(DictionaryState.SAMPLE_STATES));
+        return state.wordCalculationService.findMatchingWords(state.primarySet, restrictions);
+    }
+
+    @Benchmark
+    public Set<Word> findMatchingWordsIndexed(DictionaryState state, DictionaryState.Cursor cursor) {
+        WordRestrictions restrictions = state.restrictions.get(cursor.next(DictionaryState.SAMPLE_STATES));
+        return state.wordIndex.findMatchingWords(restrictions, word -> state.wordCalculationService.isValidWord(word, restrictions));
+    }
+}
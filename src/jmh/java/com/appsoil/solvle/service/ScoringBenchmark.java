@@ -0,0 +1,58 @@
+package com.appsoil.solvle.service;
+
+import com.appsoil.solvle.data.CharacterCounts;
+import com.appsoil.solvle.data.PartitionStats;
+import com.appsoil.solvle.data.Word;
+import com.appsoil.solvle.data.WordRestrictions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-word scoring: the positional frequency score run over every viable word, and the partition stats used to rank
+ * first guesses and tuples against the full primary set.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoringBenchmark {
+
+    /**
+     * Scores every word in the primary set against one sample state, the same work as building the viable word list.
+     */
+    @Benchmark
+    public void calculateFreqScoreByPosition(DictionaryState state, DictionaryState.Cursor cursor, Blackhole blackhole) {
+        int i = cursor.next(DictionaryState.SAMPLE_STATES);
+        WordRestrictions restrictions = state.restrictions.get(i);
+        Set<Word> containedWords = state.containedWords.get(i);
+        CharacterCounts counts = state.positionCounts.get(i);
+        for (Word word : state.primarySet) {
+            blackhole.consume(state.wordCalculationService.calculateFreqScoreByPosition(word, counts, containedWords,
+                    word.getLength(), restrictions, new HashMap<>()));
+        }
+    }
+
+    @Benchmark
+    public PartitionStats getPartitionStatsForWord(DictionaryState state, DictionaryState.Cursor cursor) {
+        Word guess = state.solutions.get(cursor.next(DictionaryState.SAMPLE_STATES));
+        return state.wordCalculationService.getPartitionStatsForWord(state.primarySet, guess);
+    }
+
+    @Benchmark
+    public PartitionStats getPartitionStatsForTuple(DictionaryState state, DictionaryState.Cursor cursor) {
+        int i = cursor.next(DictionaryState.SAMPLE_STATES);
+        Set<Word> tuple = Set.of(state.solutions.get(i), state.solutions.get((i + 1) % DictionaryState.SAMPLE_STATES));
+        return state.wordCalculationService.getPartitionStatsForTuple(state.primarySet, tuple);
+    }
+}
@@ -0,0 +1,77 @@
+package com.appsoil.solvle.service;
+
+import com.appsoil.solvle.config.SolvleConfig;
+import com.appsoil.solvle.data.Word;
+import com.appsoil.solvle.data.WordRestrictions;
+import com.appsoil.solvle.service.solvers.RemainingSolver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end workloads: tuple generation, anagram search and solving a word from the opening position.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SolverBenchmark {
+
+    //the full fishing set is far too many pairs to evaluate per invocation, so tuples are built from a sample of it
+    private static final int TUPLE_GUESSES = 150;
+
+    @State(Scope.Benchmark)
+    public static class TupleState {
+        Set<Word> availableGuesses;
+
+        @Setup(Level.Trial)
+        public void setUp(DictionaryState state) {
+            availableGuesses = Set.copyOf(DictionaryState.sample(state.fishingSet, TUPLE_GUESSES, 0));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class AnagramState {
+        @Param({"aelst", "aeilnorstu"})
+        public String letters;
+
+        SolvescapeService solvescapeService;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            solvescapeService = new SolvescapeService(new SolvleConfig().allDictionaries());
+        }
+    }
+
+    @Benchmark
+    public Set<Set<Word>> generateNWordListsHeuristic(DictionaryState state, TupleState tuples) {
+        return state.solvleService.generateNWordListsHeuristic(tuples.availableGuesses, state.primarySet, 2, state.wordCalculationService);
+    }
+
+    @Benchmark
+    public Map<Integer, List<String>> getAnagrams(AnagramState anagrams) {
+        return anagrams.solvescapeService.getAnagrams(anagrams.letters);
+    }
+
+    @Benchmark
+    public List<String> solve(DictionaryState state, DictionaryState.Cursor cursor) {
+        Word solution = state.solutions.get(cursor.next(DictionaryState.SAMPLE_STATES));
+        return new RemainingSolver(state.solvleService, state.wordConfig.config)
+                .solve(solution, state.primarySet, state.fishingSet, WordRestrictions.noRestrictions());
+    }
+}
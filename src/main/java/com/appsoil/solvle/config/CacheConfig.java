@@ -0,0 +1,80 @@
+package com.appsoil.solvle.config;
+
+import com.appsoil.solvle.data.WordRestrictions;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/**
+ * Replaces the default unbounded cache manager with bounded Caffeine caches (W-TinyLFU eviction) that record
+ * hit, miss and eviction statistics. Concurrent misses for the same key are coalesced by {@link SingleFlightCaffeineCache}.
+ */
+@Configuration
+@Log4j2
+@EnableConfigurationProperties(SolvleCacheProperties.class)
+public class CacheConfig {
+
+    public static final List<String> CACHE_NAMES = List.of("validWords", "wordScore", "tupleScore", "playOut");
+    public static final String RESTRICTIONS_KEY_GENERATOR = "restrictionsKeyGenerator";
+
+    @Bean
+    public CacheManager cacheManager(SolvleCacheProperties properties) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+                return new SingleFlightCaffeineCache(name, cache, isAllowNullValues());
+            }
+        };
+        //caches created on demand for any other name still get the default limits
+        cacheManager.setCaffeine(builder(properties.specFor("")));
+        CACHE_NAMES.forEach(name -> {
+            SolvleCacheProperties.CacheSpec spec = properties.specFor(name);
+            log.info("Configuring cache {} with {}", name, spec);
+            cacheManager.registerCustomCache(name, builder(spec).build());
+        });
+        return cacheManager;
+    }
+
+    /**
+     * Generates keys for cached methods whose first parameter is a restriction string, replacing the string with its
+     * canonical {@link WordRestrictions} so that different strings describing the same state share an entry.
+     */
+    @Bean(RESTRICTIONS_KEY_GENERATOR)
+    public KeyGenerator restrictionsKeyGenerator() {
+        return (target, method, params) -> restrictionsKey(params);
+    }
+
+    /**
+     * @return the key {@link #restrictionsKeyGenerator()} generates for a cached method called with these parameters,
+     * for putting entries in the cache from elsewhere
+     */
+    public static Object restrictionsKey(Object... params) {
+        Object[] key = params.clone();
+        if (key.length > 0 && key[0] instanceof String restrictionString) {
+            key[0] = new WordRestrictions(restrictionString.toLowerCase()).canonical();
+        }
+        return new SimpleKey(key);
+    }
+
+    private static Caffeine<Object, Object> builder(SolvleCacheProperties.CacheSpec spec) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(spec.maximumSize())
+                .recordStats();
+        if (spec.expireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.expireAfterWrite());
+        }
+        if (spec.expireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.expireAfterAccess());
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,21 @@
+package com.appsoil.solvle.config;
+
+import com.appsoil.solvle.service.DecisionTreeKey;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Decision trees to prepare at startup, bound from solvle.decision-tree.* in application.properties.
+ *
+ * @param directory Where built trees are saved and loaded from. Trees are rebuilt on every start if this is not set.
+ * @param preload   Settings to build trees for (for example solvle.decision-tree.preload[0].dictionary=SIMPLE)
+ */
+@ConfigurationProperties(prefix = "solvle.decision-tree")
+public record DecisionTreeProperties(Path directory, List<DecisionTreeKey> preload) {
+
+    public DecisionTreeProperties {
+        preload = preload == null ? List.of() : preload;
+    }
+}
@@ -0,0 +1,25 @@
+package com.appsoil.solvle.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Dictionary loading settings, bound from solvle.dictionary.* in application.properties. Dictionaries that are not
+ * listed are read, and their lookup structures built, the first time they are used.
+ *
+ * @param preload                Dictionaries to read at startup
+ * @param prepare                Dictionaries whose word index, feedback matrix and first guess partition data are
+ *                               built at startup. Their fishing dictionaries are read as part of this.
+ * @param partitionDataDirectory Where first guess partition data is saved and loaded from. It is recomputed on
+ *                               every start if this is not set.
+ */
+@ConfigurationProperties(prefix = "solvle.dictionary")
+public record DictionaryProperties(List<DictionaryType> preload, List<DictionaryType> prepare, Path partitionDataDirectory) {
+
+    public DictionaryProperties {
+        preload = preload == null ? List.of() : preload;
+        prepare = prepare == null ? List.of() : prepare;
+    }
+}
@@ -0,0 +1,60 @@
+package com.appsoil.solvle.config;
+
+import com.appsoil.solvle.data.Dictionary;
+import com.appsoil.solvle.data.DictionarySnapshot;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes a {@link DictionarySnapshot} next to each word list in the build output, so the packaged application can
+ * skip parsing the text. Run by the build during process-classes with the output directory as the only argument.
+ * Snapshots whose checksum still matches their word list are left alone, and the application trusts whatever
+ * snapshot it finds without reading the word list again.
+ */
+@Log4j2
+public class DictionarySnapshotGenerator {
+
+    //magic, version and checksum
+    private static final int HEADER_BYTES = 16;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: DictionarySnapshotGenerator <output directory>");
+        }
+        Path outputDirectory = Path.of(args[0]);
+        for (DictionaryType type : DictionaryType.values()) {
+            byte[] source = SolvleConfig.readResource(type.getPath());
+            long checksum = SolvleConfig.checksum(source);
+            Path file = outputDirectory.resolve(type.getSnapshotPath().substring(1));
+            if (isUpToDate(file, checksum)) {
+                log.info("{} snapshot {} is up to date", type, file);
+                continue;
+            }
+            Dictionary dictionary = SolvleConfig.parseDictionary(type.getPath(), source);
+            Files.createDirectories(file.getParent());
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                DictionarySnapshot.write(dictionary, checksum, out);
+            }
+            log.info("Wrote {} snapshot to {} ({} bytes)", type, file, Files.size(file));
+        }
+    }
+
+    private static boolean isUpToDate(Path file, long checksum) {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return DictionarySnapshot.readChecksum(ByteBuffer.wrap(in.readNBytes(HEADER_BYTES))) == checksum;
+        } catch (IOException e) {
+            log.info("Rewriting unreadable snapshot {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+}
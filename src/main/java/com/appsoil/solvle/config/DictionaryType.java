@@ -20,6 +20,13 @@ public enum DictionaryType {
     public String getPath() {
         return path;
     }
+
+    /**
+     * @return classpath location of the binary snapshot generated from this word list at build time
+     */
+    public String getSnapshotPath() {
+        return path.substring(0, path.lastIndexOf('.')) + ".dict";
+    }
 }
 
 
@@ -0,0 +1,76 @@
+package com.appsoil.solvle.config;
+
+import com.appsoil.solvle.data.Dictionary;
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Map of every {@link DictionaryType} that only reads a dictionary the first time it is requested. Each dictionary
+ * is loaded at most once, even when several threads ask for it at the same time, and requests for dictionaries that
+ * are already loaded never lock.
+ *
+ * Iterating over the entries loads every dictionary, so callers should look dictionaries up by type.
+ */
+@Log4j2
+public class LazyDictionaries extends AbstractMap<DictionaryType, Dictionary> {
+
+    private static final DictionaryType[] TYPES = DictionaryType.values();
+
+    private final Function<DictionaryType, Dictionary> loader;
+    private final AtomicReferenceArray<Dictionary> dictionaries = new AtomicReferenceArray<>(TYPES.length);
+    private final Object[] locks = new Object[TYPES.length];
+
+    public LazyDictionaries(Function<DictionaryType, Dictionary> loader) {
+        this.loader = loader;
+        Arrays.setAll(locks, i -> new Object());
+    }
+
+    @Override
+    public Dictionary get(Object key) {
+        if (!(key instanceof DictionaryType type)) {
+            return null;
+        }
+        Dictionary dictionary = dictionaries.get(type.ordinal());
+        if (dictionary == null) {
+            synchronized (locks[type.ordinal()]) {
+                dictionary = dictionaries.get(type.ordinal());
+                if (dictionary == null) {
+                    LocalDateTime start = LocalDateTime.now();
+                    dictionary = loader.apply(type);
+                    dictionaries.set(type.ordinal(), dictionary);
+                    log.info("Loaded dictionary {} in {}", type, Duration.between(start, LocalDateTime.now()));
+                }
+            }
+        }
+        return dictionary;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof DictionaryType;
+    }
+
+    @Override
+    public int size() {
+        return TYPES.length;
+    }
+
+    public boolean isLoaded(DictionaryType type) {
+        return dictionaries.get(type.ordinal()) != null;
+    }
+
+    @Override
+    public Set<Entry<DictionaryType, Dictionary>> entrySet() {
+        return Arrays.stream(TYPES)
+                .map(type -> new SimpleImmutableEntry<>(type, get(type)))
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,26 @@
+package com.appsoil.solvle.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Speculative analysis of likely next states, bound from solvle.prefetch.* in application.properties.
+ *
+ * @param enabled     Whether to prefetch at all
+ * @param threads     Low priority threads that run prefetches
+ * @param queueSize   Prefetches that may wait for a thread before new ones are dropped
+ * @param outcomes    Number of feedback outcomes of the top recommendation to prefetch, largest first
+ * @param expireAfter How long a prefetched state has to be requested before it counts as wasted work
+ */
+@ConfigurationProperties(prefix = "solvle.prefetch")
+public record PrefetchProperties(Boolean enabled, Integer threads, Integer queueSize, Integer outcomes, Duration expireAfter) {
+
+    public PrefetchProperties {
+        enabled = enabled == null || enabled;
+        threads = threads == null ? 1 : Math.max(threads, 1);
+        queueSize = queueSize == null ? 32 : queueSize;
+        outcomes = outcomes == null ? 3 : outcomes;
+        expireAfter = expireAfter == null ? Duration.ofMinutes(10) : expireAfter;
+    }
+}
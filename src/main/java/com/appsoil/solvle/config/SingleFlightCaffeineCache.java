@@ -0,0 +1,83 @@
+package com.appsoil.solvle.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caffeine cache that only computes a missing value once when several callers ask for the same key at the same
+ * time. The first caller runs the computation and everyone else waits for its result, so a burst of identical
+ * requests (such as the opening state of a new daily puzzle) costs one analysis instead of hundreds.
+ *
+ * Applies to cached methods marked with sync = true. The computation runs outside of Caffeine's own locks, so a
+ * slow analysis never blocks lookups for other keys.
+ */
+public class SingleFlightCaffeineCache extends CaffeineCache {
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    public SingleFlightCaffeineCache(String name, Cache<Object, Object> cache, boolean allowNullValues) {
+        super(name, cache, allowNullValues);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                throw new ValueRetrievalException(key, valueLoader, e.getCause());
+            }
+        }
+
+        try {
+            //the previous caller may have finished between the first lookup and registering this call. Read the map
+            //directly so this doesn't count as a second miss in the cache stats
+            Object stored = getNativeCache().asMap().get(key);
+            T value;
+            if (stored != null) {
+                value = (T) fromStoreValue(stored);
+            } else {
+                value = valueLoader.call();
+                put(key, value);
+            }
+            call.complete(value);
+            return value;
+        } catch (Exception e) {
+            call.completeExceptionally(e);
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } catch (Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    /**
+     * @return true if the key has a value, without counting a hit or miss in the cache stats
+     */
+    public boolean containsKey(Object key) {
+        return getNativeCache().asMap().containsKey(key);
+    }
+
+    /**
+     * @return the number of keys currently being computed
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,51 @@
+package com.appsoil.solvle.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Eviction settings for the service caches, bound from solvle.cache.* in application.properties.
+ * Any setting missing from a named cache is taken from the defaults.
+ *
+ * @param defaults Settings applied to every cache
+ * @param caches   Per-cache overrides, keyed by cache name (for example solvle.cache.caches[validWords].maximum-size)
+ */
+@ConfigurationProperties(prefix = "solvle.cache")
+public record SolvleCacheProperties(CacheSpec defaults, Map<String, CacheSpec> caches) {
+
+    public static final long DEFAULT_MAXIMUM_SIZE = 10_000;
+
+    /**
+     * @param maximumSize       Maximum number of entries before the least valuable entries are evicted
+     * @param expireAfterWrite  Optional time to live for each entry
+     * @param expireAfterAccess Optional idle time after which an entry is removed
+     */
+    public record CacheSpec(Long maximumSize, Duration expireAfterWrite, Duration expireAfterAccess) {
+
+        private CacheSpec orElse(CacheSpec other) {
+            if (other == null) {
+                return this;
+            }
+            return new CacheSpec(maximumSize != null ? maximumSize : other.maximumSize,
+                    expireAfterWrite != null ? expireAfterWrite : other.expireAfterWrite,
+                    expireAfterAccess != null ? expireAfterAccess : other.expireAfterAccess);
+        }
+    }
+
+    /**
+     * @return the settings for this cache, filled in from the defaults. The size is always bounded.
+     */
+    public CacheSpec specFor(String cacheName) {
+        CacheSpec spec = caches == null ? null : caches.entrySet().stream()
+                .filter(e -> e.getKey().equalsIgnoreCase(cacheName))
+                .map(Map.Entry::getValue)
+                .findFirst().orElse(null);
+        CacheSpec base = new CacheSpec(DEFAULT_MAXIMUM_SIZE, null, null);
+        if (defaults != null) {
+            base = defaults.orElse(base);
+        }
+        return spec == null ? base : spec.orElse(base);
+    }
+}
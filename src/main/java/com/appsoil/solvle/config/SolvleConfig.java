@@ -1,56 +1,83 @@
 package com.appsoil.solvle.config;
 
 import com.appsoil.solvle.data.Dictionary;
+import com.appsoil.solvle.data.DictionarySnapshot;
 import com.appsoil.solvle.data.Word;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 
 @Configuration
 @Log4j2
 @EnableAsync
+@EnableConfigurationProperties(DictionaryProperties.class)
 public class SolvleConfig {
 
+    /**
+     * Dictionaries are read on first use. The ones listed in {@link DictionaryProperties} are read by the startup
+     * pipeline in PreloadService.
+     */
     @Bean
     public Map<DictionaryType, Dictionary> allDictionaries() {
-        return Arrays.stream(DictionaryType.values())
-                .collect(Collectors.toMap(
-                        type -> type,
-                        type -> readResourceToDictionary(type.getPath())
-                ));
+        return new LazyDictionaries(this::readResourceToDictionary);
     }
 
-    private Dictionary readResourceToDictionary(String path) {
-        InputStream is = this.getClass().getResourceAsStream(path);
-        Map<Integer, Set<Word>> dict = new HashMap<>();
-        BufferedReader br = new BufferedReader(new InputStreamReader(is));
-        int count = 0;
-
-        try {
-            String word = br.readLine();
-            while (word != null) {
-                if (!dict.containsKey(word.length())) {
-                    dict.put(word.length(), new TreeSet<>()); //alphabetized
-                }
-                dict.get(word.length()).add(new Word(word));
-                word = br.readLine();
-                if (count++ % 10000 == 0) {
-                    log.info(count - 1 + " read...");
-                }
+    /**
+     * Loads the dictionary from its binary snapshot, and only reads the word list text when there is no usable
+     * snapshot (running without the build step that generates them). Snapshots are regenerated by every build, which
+     * is where {@link DictionarySnapshotGenerator} checks them against the word list.
+     */
+    private Dictionary readResourceToDictionary(DictionaryType type) {
+        byte[] snapshot = readResource(type.getSnapshotPath());
+        if (snapshot != null) {
+            try {
+                Dictionary dictionary = DictionarySnapshot.read(ByteBuffer.wrap(snapshot));
+                log.info("Read {} from snapshot {}", type, type.getSnapshotPath());
+                return dictionary;
+            } catch (IOException e) {
+                log.warn("Unable to read snapshot {}: {}", type.getSnapshotPath(), e.getMessage());
             }
-        } catch (IOException ioe) {
-            throw new RuntimeException("Error parsing dictionary", ioe);
         }
+        byte[] source = readResource(type.getPath());
+        if (source == null) {
+            throw new IllegalStateException("Missing dictionary " + type.getPath());
+        }
+        return parseDictionary(type.getPath(), source);
+    }
+
+    static Dictionary parseDictionary(String path, byte[] source) {
+        Map<Integer, Set<Word>> dict = new HashMap<>();
+        List<String> lines = new String(source, StandardCharsets.UTF_8).lines().toList();
+        lines.forEach(word -> dict.computeIfAbsent(word.length(), length -> new TreeSet<>()).add(new Word(word))); //alphabetized
 
-        log.info("Read " + count + " words from " + path);
+        log.info("Read " + lines.size() + " words from " + path);
         return new Dictionary(dict);
     }
+
+    /**
+     * @return the contents of the classpath resource, or null if it doesn't exist
+     */
+    static byte[] readResource(String path) {
+        try (InputStream is = SolvleConfig.class.getResourceAsStream(path)) {
+            return is == null ? null : is.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error reading " + path, e);
+        }
+    }
+
+    static long checksum(byte[] source) {
+        CRC32 crc = new CRC32();
+        crc.update(source);
+        return crc.getValue();
+    }
 }
@@ -0,0 +1,12 @@
+package com.appsoil.solvle.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+public record CacheStatsDTO(String name, long size, long hits, long misses, double hitRate, long evictions) {
+
+    public static CacheStatsDTO of(String name, Cache<Object, Object> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatsDTO(name, cache.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate(), stats.evictionCount());
+    }
+}
@@ -1,6 +1,5 @@
 package com.appsoil.solvle.controller;
 
-import com.appsoil.solvle.data.WordFrequencyScore;
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
 import java.util.ArrayList;
@@ -25,7 +24,7 @@ public class GameScoreDTO {
     private DescriptiveStatistics luckStats = new DescriptiveStatistics();
     private DescriptiveStatistics heuristicStats = new DescriptiveStatistics();
 
-    public void addRow(String playerWord, WordScoreDTO playerScore, String solvleWord, WordScoreDTO solvleScore, int actualRemaining, int previousRemaining, WordFrequencyScore bestFishing) {
+    public void addRow(String playerWord, WordScoreDTO playerScore, String solvleWord, WordScoreDTO solvleScore, int actualRemaining, int previousRemaining, double bestFishingScore) {
         double skill, luck, heuristic;
         if (playerScore.remainingWords() <= 0) {
             skill = 1;
@@ -40,9 +39,9 @@ public class GameScoreDTO {
             heuristicStats.addValue(heuristic);
         } else {
             skill = solvleScore.remainingWords() / playerScore.remainingWords();
-            heuristic = bestFishing.freqScore() > 0 ? playerScore.fishingScore() /  bestFishing.freqScore() : 1.0;
+            heuristic = bestFishingScore > 0 ? playerScore.fishingScore() /  bestFishingScore : 1.0;
             luck = calculateLuck(playerScore.remainingWords(), actualRemaining);
-            if(bestFishing.freqScore() > 0) {
+            if(bestFishingScore > 0) {
                 skillStats.addValue(skill);
                 luckStats.addValue(luck);
                 heuristicStats.addValue(heuristic);
@@ -0,0 +1,82 @@
+package com.appsoil.solvle.controller;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with HDR-style log-linear buckets: every power of two microseconds is split into
+ * {@link #SUB_BUCKETS} equal buckets, so any recorded value is kept within about 6% of itself from 1us up to
+ * {@link #MAX_MICROS}, in a fixed few hundred counters. Recording only increments counters, so any number of request
+ * threads can record at once without waiting on each other.
+ *
+ * Counts only ever grow, so they are exported as cumulative Prometheus buckets and quantiles are taken over a recent
+ * window by the server. Powers of two and halfway between them are bucket edges, so counts up to those bounds are exact.
+ */
+final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 4;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Latencies above this (about 19 hours) are counted in the last bucket
+     */
+    static final long MAX_MICROS = (1L << 36) - 1;
+
+    private static final int BUCKETS = bucketIndex(MAX_MICROS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalMicros = new LongAdder();
+
+    void recordNanos(long nanos) {
+        long micros = Math.min(Math.max(nanos / 1000, 0), MAX_MICROS);
+        counts.incrementAndGet(bucketIndex(micros));
+        totalMicros.add(micros);
+    }
+
+    long totalMicros() {
+        return totalMicros.sum();
+    }
+
+    /**
+     * Values recorded while this runs may or may not be included.
+     * @param boundsMicros Ascending upper bounds, each the highest value of some bucket
+     * @return the number of values at or below each bound, followed by the total number of values
+     */
+    long[] cumulativeCounts(long[] boundsMicros) {
+        long[] result = new long[boundsMicros.length + 1];
+        long seen = 0;
+        int bound = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            while (bound < boundsMicros.length && highestInBucket(i) > boundsMicros[bound]) {
+                result[bound++] = seen;
+            }
+            seen += counts.get(i);
+        }
+        while (bound < boundsMicros.length) {
+            result[bound++] = seen;
+        }
+        result[boundsMicros.length] = seen;
+        return result;
+    }
+
+    /**
+     * Values below {@link #SUB_BUCKETS} get a bucket each, then each power of two gets {@link #SUB_BUCKETS} buckets
+     * keyed by the bits after its highest one.
+     */
+    static int bucketIndex(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + (int) ((micros >>> shift) - SUB_BUCKETS);
+    }
+
+    static long highestInBucket(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        long lowest = (long) (SUB_BUCKETS + (index - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
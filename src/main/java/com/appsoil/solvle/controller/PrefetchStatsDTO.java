@@ -0,0 +1,18 @@
+package com.appsoil.solvle.controller;
+
+/**
+ * @param submitted     Prefetches queued to run
+ * @param dropped       Prefetches dropped because the queue was full
+ * @param alreadyCached Prefetches skipped because the state was already in the cache
+ * @param completed     Prefetches that analyzed a state
+ * @param failed        Prefetches that threw an exception
+ * @param hits          Prefetched states that were requested before expiring
+ * @param wasted        Prefetched states that expired or were evicted without being requested
+ * @param pending       Prefetched states that have not been requested or expired yet
+ * @param hitRate       Hits out of the prefetched states that were either requested or wasted
+ * @param computeMillis Total time spent analyzing prefetched states
+ * @param wastedMillis  Time spent analyzing the states that were wasted
+ */
+public record PrefetchStatsDTO(long submitted, long dropped, long alreadyCached, long completed, long failed, long hits, long wasted,
+                               long pending, double hitRate, long computeMillis, long wastedMillis) {
+}
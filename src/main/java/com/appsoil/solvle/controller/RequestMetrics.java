@@ -0,0 +1,167 @@
+package com.appsoil.solvle.controller;
+
+import com.appsoil.solvle.config.DictionaryType;
+import com.appsoil.solvle.service.ExecutionPlanner;
+import com.appsoil.solvle.service.WordConfig;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+/**
+ * Request counts and latency histograms for each endpoint, dictionary and configuration, written out in the
+ * Prometheus text format along with cache, prefetch and execution plan stats. Nothing here takes a lock, so recording a request never
+ * makes another request wait.
+ *
+ * Latencies are exported as a cumulative histogram rather than precomputed quantiles, so that percentiles can be
+ * taken over a recent window and combined across instances, e.g.
+ * {@code histogram_quantile(0.99, sum by (le, endpoint) (rate(solvle_request_duration_seconds_bucket[5m])))}.
+ */
+@Component
+@Log4j2
+public class RequestMetrics {
+
+    /**
+     * Exported bucket edges in microseconds: every power of two and halfway between them from 512us to about 67s,
+     * which are all edges of {@link LatencyHistogram} buckets
+     */
+    static final long[] BUCKET_EDGES_MICROS = LongStream.rangeClosed(9, 26)
+            .flatMap(power -> power < 26 ? LongStream.of(1L << power, 3L << (power - 1)) : LongStream.of(1L << power))
+            .toArray();
+
+    //highest value counted under each edge
+    private static final long[] BUCKET_BOUNDS_MICROS = Arrays.stream(BUCKET_EDGES_MICROS).map(edge -> edge - 1).toArray();
+
+    //total requests between logging the request rate
+    private static final long LOG_EVERY = 1000;
+
+    public enum Endpoint {
+        ANALYSIS, SCORE, SCORE_TUPLE, BEST_WORDS, TUPLE_JOB, PLAYOUT, PLAYOUT_STREAM, SOLVE, RATE
+    }
+
+    /**
+     * @param wordConfig Null for endpoints that don't take a configuration
+     */
+    record Key(Endpoint endpoint, DictionaryType wordList, WordConfig wordConfig) {
+        String labels() {
+            return String.format("endpoint=\"%s\",dictionary=\"%s\",config=\"%s\"", endpoint.name().toLowerCase(), wordList,
+                    wordConfig == null ? "NONE" : wordConfig);
+        }
+    }
+
+    private final Instant startTime = Instant.now();
+    private final AtomicLong requests = new AtomicLong();
+    private final ConcurrentMap<Key, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * Counts a request and records how long it took, whether or not it succeeded.
+     * @param startNanos {@link System#nanoTime()} from when the request started
+     */
+    public void record(Endpoint endpoint, DictionaryType wordList, WordConfig wordConfig, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        Key key = new Key(endpoint, wordList, wordConfig);
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = histograms.computeIfAbsent(key, k -> new LatencyHistogram());
+        }
+        histogram.recordNanos(elapsed);
+        long total = requests.incrementAndGet();
+        if (total % LOG_EVERY == 0) {
+            double hours = Math.max(Duration.between(startTime, Instant.now()).toSeconds(), 1) / 3600.0;
+            log.info("{} requests made since {} ({} per hour)", total, startTime, total / hours);
+        }
+    }
+
+    /**
+     * @return every metric in the Prometheus text exposition format
+     */
+    public String toPrometheus(List<CacheStatsDTO> caches, PrefetchStatsDTO prefetch, List<ExecutionPlanner.PhaseStats> plans) {
+        StringBuilder out = new StringBuilder();
+        List<Map.Entry<Key, LatencyHistogram>> entries = histograms.entrySet().stream()
+                .sorted(Comparator.comparing((Map.Entry<Key, LatencyHistogram> entry) -> entry.getKey().endpoint())
+                        .thenComparing(entry -> entry.getKey().wordList())
+                        .thenComparing(entry -> entry.getKey().wordConfig(), Comparator.nullsFirst(Comparator.naturalOrder())))
+                .toList();
+
+        header(out, "solvle_request_duration_seconds", "histogram", "Time taken to answer requests, including failed ones");
+        for (Map.Entry<Key, LatencyHistogram> entry : entries) {
+            String labels = entry.getKey().labels();
+            LatencyHistogram histogram = entry.getValue();
+            long[] counts = histogram.cumulativeCounts(BUCKET_BOUNDS_MICROS);
+            for (int i = 0; i < BUCKET_EDGES_MICROS.length; i++) {
+                sample(out, "solvle_request_duration_seconds_bucket", labels + ",le=\"" + BigDecimal.valueOf(BUCKET_EDGES_MICROS[i], 6).stripTrailingZeros().toPlainString() + "\"", counts[i]);
+            }
+            long count = counts[BUCKET_EDGES_MICROS.length];
+            sample(out, "solvle_request_duration_seconds_bucket", labels + ",le=\"+Inf\"", count);
+            sample(out, "solvle_request_duration_seconds_sum", labels, seconds(histogram.totalMicros()));
+            sample(out, "solvle_request_duration_seconds_count", labels, count);
+        }
+        header(out, "solvle_start_time_seconds", "gauge", "Time the metrics started being recorded, in seconds since the epoch");
+        sample(out, "solvle_start_time_seconds", "", startTime.getEpochSecond());
+
+        header(out, "solvle_cache_size", "gauge", "Estimated entries in each cache");
+        caches.forEach(cache -> sample(out, "solvle_cache_size", cacheLabel(cache), cache.size()));
+        header(out, "solvle_cache_hits_total", "counter", "Cache lookups that found an entry");
+        caches.forEach(cache -> sample(out, "solvle_cache_hits_total", cacheLabel(cache), cache.hits()));
+        header(out, "solvle_cache_misses_total", "counter", "Cache lookups that had to compute an entry");
+        caches.forEach(cache -> sample(out, "solvle_cache_misses_total", cacheLabel(cache), cache.misses()));
+        header(out, "solvle_cache_evictions_total", "counter", "Entries evicted from each cache");
+        caches.forEach(cache -> sample(out, "solvle_cache_evictions_total", cacheLabel(cache), cache.evictions()));
+
+        header(out, "solvle_prefetch_tasks_total", "counter", "Prefetch tasks queued after an analysis, by outcome");
+        sample(out, "solvle_prefetch_tasks_total", "outcome=\"submitted\"", prefetch.submitted());
+        sample(out, "solvle_prefetch_tasks_total", "outcome=\"dropped\"", prefetch.dropped());
+        sample(out, "solvle_prefetch_tasks_total", "outcome=\"failed\"", prefetch.failed());
+        header(out, "solvle_prefetch_states_total", "counter", "States considered for prefetching, by outcome");
+        sample(out, "solvle_prefetch_states_total", "outcome=\"already_cached\"", prefetch.alreadyCached());
+        sample(out, "solvle_prefetch_states_total", "outcome=\"completed\"", prefetch.completed());
+        sample(out, "solvle_prefetch_states_total", "outcome=\"hit\"", prefetch.hits());
+        sample(out, "solvle_prefetch_states_total", "outcome=\"wasted\"", prefetch.wasted());
+        header(out, "solvle_prefetch_pending", "gauge", "Prefetched states waiting to be requested");
+        sample(out, "solvle_prefetch_pending", "", prefetch.pending());
+
+        header(out, "solvle_plan_runs_total", "counter", "Analysis phases run, by how the execution planner chose to run them");
+        plans.forEach(plan -> sample(out, "solvle_plan_runs_total", planLabels(plan), plan.runs()));
+        header(out, "solvle_plan_items_total", "counter", "Elements iterated over by planned analysis phases");
+        plans.forEach(plan -> sample(out, "solvle_plan_items_total", planLabels(plan), plan.items()));
+        header(out, "solvle_plan_seconds_total", "counter", "Time spent in planned analysis phases");
+        plans.forEach(plan -> sample(out, "solvle_plan_seconds_total", planLabels(plan), plan.nanos() / 1e9));
+        return out.toString();
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name);
+        if (!labels.isEmpty()) {
+            out.append('{').append(labels).append('}');
+        }
+        out.append(' ').append(value == Math.rint(value) && Math.abs(value) < 1e15 ? Long.toString((long) value) : Double.toString(value))
+                .append('\n');
+    }
+
+    private static String planLabels(ExecutionPlanner.PhaseStats plan) {
+        return "phase=\"" + plan.phase().name().toLowerCase() + "\",mode=\"" + (plan.parallel() ? "parallel" : "sequential") + "\"";
+    }
+
+    private static String cacheLabel(CacheStatsDTO cache) {
+        return "cache=\"" + cache.name() + "\"";
+    }
+
+    private static double seconds(long micros) {
+        return micros / 1_000_000.0;
+    }
+}
@@ -1,55 +1,88 @@
 package com.appsoil.solvle.controller;
 
 import com.appsoil.solvle.config.DictionaryType;
+import com.appsoil.solvle.controller.RequestMetrics.Endpoint;
 import com.appsoil.solvle.data.PlayOut;
 import com.appsoil.solvle.data.TupleScore;
 import com.appsoil.solvle.data.Word;
+import com.appsoil.solvle.service.DecisionTreeKey;
+import com.appsoil.solvle.service.ExecutionPlanner;
+import com.appsoil.solvle.service.PrefetchService;
+import com.appsoil.solvle.service.PreloadService;
 import com.appsoil.solvle.service.SolvleService;
 import com.appsoil.solvle.service.WordConfig;
 import com.appsoil.solvle.service.job.SolveJob;
 import com.appsoil.solvle.service.solvers.RemainingSolver;
 import com.appsoil.solvle.service.solvers.Solver;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.time.Duration;
-import java.time.LocalDateTime;
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import static java.time.temporal.ChronoUnit.MINUTES;
-
 @RestController
 @RequestMapping("/solvle")
 @Log4j2
 public class SolvleController {
 
     private final SolvleService solvleService;
+    private final CacheManager cacheManager;
+    private final ObjectProvider<PreloadService> preloadService;
+    private final PrefetchService prefetchService;
+    private final RequestMetrics requestMetrics;
 
-    private static long requestsSinceLoading;
-    private static final LocalDateTime startTime = LocalDateTime.now();
-    private static LocalDateTime lastRequestLogTime = LocalDateTime.now();
-
-    public SolvleController(SolvleService solvleService) {
+    public SolvleController(SolvleService solvleService, CacheManager cacheManager, ObjectProvider<PreloadService> preloadService,
+                            PrefetchService prefetchService, RequestMetrics requestMetrics) {
         this.solvleService = solvleService;
+        this.cacheManager = cacheManager;
+        this.preloadService = preloadService;
+        this.prefetchService = prefetchService;
+        this.requestMetrics = requestMetrics;
     }
 
+    /**
+     * @param partitionMillis If positive, best words are ranked for at most this many milliseconds however many valid
+     *                        words there are, and the results are not cached. Otherwise best words are only ranked when
+     *                        there are few enough valid words, and the results are cached. States on a decision tree
+     *                        always get the cached analysis, which the tree's solver ranked in full.
+     */
     @GetMapping("/{wordRestrictions}")
     public SolvleDTO getWordAnalysis(@PathVariable String wordRestrictions,
                                                @RequestParam(defaultValue = "SIMPLE") DictionaryType wordList,
                                                @RequestParam(defaultValue = "SIMPLE") WordConfig wordConfig,
                                                @RequestParam(defaultValue = "false") boolean hardMode,
-                                               @RequestParam(defaultValue = "false") boolean requireAnswer
+                                               @RequestParam(defaultValue = "false") boolean requireAnswer,
+                                               @RequestParam(defaultValue = "0") long partitionMillis
                                    ) {
 
-        LocalDateTime start = LocalDateTime.now();
-        logRequestsCount(start);
-        log.info("Valid words requested with configuration {} wordList {} hardMode={} requireAnswer={}", wordConfig, wordList, hardMode, requireAnswer);
-        SolvleDTO result = solvleService.getWordAnalysis(wordRestrictions.toLowerCase(), wordList, wordConfig, hardMode, requireAnswer);
-        log.info("Valid words for {} took {}", wordRestrictions, Duration.between(start, LocalDateTime.now()));
-        return SolvleDTO.appendRestrictionString(wordRestrictions, result);
+        long start = System.nanoTime();
+        try {
+            log.info("Valid words requested with configuration {} wordList {} hardMode={} requireAnswer={}", wordConfig, wordList, hardMode, requireAnswer);
+            SolvleDTO result;
+            if (partitionMillis > 0 && !solvleService.isOnDecisionTree(wordRestrictions, wordList, wordConfig, hardMode, requireAnswer)) {
+                result = solvleService.getWordAnalysis(wordRestrictions.toLowerCase(), wordList, wordConfig, hardMode, requireAnswer, Duration.ofMillis(partitionMillis));
+            } else {
+                prefetchService.recordRequest(wordRestrictions, wordList, wordConfig, hardMode, requireAnswer);
+                result = solvleService.getWordAnalysis(wordRestrictions.toLowerCase(), wordList, wordConfig, hardMode, requireAnswer);
+                prefetchService.prefetchNextStates(wordRestrictions, wordList, wordConfig, hardMode, requireAnswer, result);
+            }
+            log.info("Valid words for {} took {}", wordRestrictions, elapsed(start));
+            return SolvleDTO.appendRestrictionString(wordRestrictions, result);
+        } finally {
+            requestMetrics.record(Endpoint.ANALYSIS, wordList, wordConfig, start);
+        }
     }
 
     @GetMapping("/score/{wordRestrictions}/{wordToScore}")
@@ -60,25 +93,31 @@ public class SolvleController {
                                      @RequestParam(defaultValue = "false") boolean hardMode,
                                      @RequestParam(defaultValue = "false") boolean requireAnswer
                                      ) {
-        LocalDateTime start = LocalDateTime.now();
-        logRequestsCount(start);
-        log.info("Word Score requested for {} with configuration {}", wordToScore, wordConfig);
-        WordScoreDTO result = solvleService.getScore(wordRestrictions.toLowerCase(), wordToScore.toLowerCase(), wordList, wordConfig, hardMode, requireAnswer);
-        log.info("Word Score for {} took {}", wordToScore, Duration.between(start, LocalDateTime.now()));
+        long start = System.nanoTime();
+        try {
+            log.info("Word Score requested for {} with configuration {}", wordToScore, wordConfig);
+            WordScoreDTO result = solvleService.getScore(wordRestrictions.toLowerCase(), wordToScore.toLowerCase(), wordList, wordConfig, hardMode, requireAnswer);
+            log.info("Word Score for {} took {}", wordToScore, elapsed(start));
 
-        return result;
+            return result;
+        } finally {
+            requestMetrics.record(Endpoint.SCORE, wordList, wordConfig, start);
+        }
     }
 
     @GetMapping("/scoreTuple/{tupleString}")
     public TupleScore getScoreTuple(@PathVariable String tupleString,
                                     @RequestParam(defaultValue = "SIMPLE") DictionaryType wordList) {
-        LocalDateTime start = LocalDateTime.now();
-        logRequestsCount(start);
-        log.info("ScoreTuple requested for {} with configuration {}", tupleString, wordList);
-        Set<Word> tupleToScore = Arrays.stream(tupleString.toLowerCase().split(",")).map(Word::new).collect(Collectors.toSet());
-        TupleScore results = solvleService.scoreTuple(tupleToScore, wordList);
-        log.info("Score for {}: {}, took {}", tupleToScore, results, Duration.between(start, LocalDateTime.now()));
-        return results;
+        long start = System.nanoTime();
+        try {
+            log.info("ScoreTuple requested for {} with configuration {}", tupleString, wordList);
+            Set<Word> tupleToScore = Arrays.stream(tupleString.toLowerCase().split(",")).map(Word::new).collect(Collectors.toSet());
+            TupleScore results = solvleService.scoreTuple(tupleToScore, wordList);
+            log.info("Score for {}: {}, took {}", tupleToScore, results, elapsed(start));
+            return results;
+        } finally {
+            requestMetrics.record(Endpoint.SCORE_TUPLE, wordList, null, start);
+        }
     }
 
     @GetMapping("/{wordRestrictions}/best/{bestNWords}")
@@ -89,12 +128,15 @@ public class SolvleController {
                                           @RequestParam(defaultValue = "false") boolean hardMode,
                                           @RequestParam(defaultValue = "false") boolean requireAnswer
     ) {
-        LocalDateTime start = LocalDateTime.now();
-        logRequestsCount(start);
-        log.info("Best n words requested for {} with configuration {}", wordRestrictions, wordConfig);
-        Set<TupleScore> results = solvleService.findBestNWords(bestNWords, wordList, wordConfig, requireAnswer);
-        log.info("Best n words for  {} took {}", wordRestrictions, Duration.between(start, LocalDateTime.now()));
-        return results;
+        long start = System.nanoTime();
+        try {
+            log.info("Best n words requested for {} with configuration {}", wordRestrictions, wordConfig);
+            Set<TupleScore> results = solvleService.findBestNWords(bestNWords, wordList, wordConfig, requireAnswer);
+            log.info("Best n words for  {} took {}", wordRestrictions, elapsed(start));
+            return results;
+        } finally {
+            requestMetrics.record(Endpoint.BEST_WORDS, wordList, wordConfig, start);
+        }
     }
 
     @GetMapping("/submitTupleJob/{tupleString}")
@@ -104,13 +146,16 @@ public class SolvleController {
                                                     @RequestParam(defaultValue = "false") boolean hardMode,
                                                     @RequestParam(defaultValue = "false") boolean requireAnswer
     ) {
-        log.info("Finish tuple requested for {} with configuration {}", tupleString, wordConfig);
-        Set<Word> tuple = Arrays.stream(tupleString.toLowerCase().split(",")).map(Word::new).collect(Collectors.toSet());
-        LocalDateTime start = LocalDateTime.now();
-        logRequestsCount(start);
-        SolveJob<Set<TupleScore>> results = solvleService.submitTupleJob(tuple, wordList, requireAnswer);
-        log.info("Finish tuple {} for {} took {}", results.getStatus(), tupleString, Duration.between(start, LocalDateTime.now()));
-        return results;
+        long start = System.nanoTime();
+        try {
+            log.info("Finish tuple requested for {} with configuration {}", tupleString, wordConfig);
+            Set<Word> tuple = Arrays.stream(tupleString.toLowerCase().split(",")).map(Word::new).collect(Collectors.toSet());
+            SolveJob<Set<TupleScore>> results = solvleService.submitTupleJob(tuple, wordList, requireAnswer);
+            log.info("Finish tuple {} for {} took {}", results.getStatus(), tupleString, elapsed(start));
+            return results;
+        } finally {
+            requestMetrics.record(Endpoint.TUPLE_JOB, wordList, wordConfig, start);
+        }
     }
 
 //    @GetMapping("/finishTuple/{tupleString}")
@@ -129,19 +174,80 @@ public class SolvleController {
 //        return results;
 //    }
 
+    /**
+     * @param timeoutSeconds If positive, words that haven't been played out in this many seconds are left out of the
+     *                       results. Otherwise every word is played out and the results are cached.
+     */
     @GetMapping("/{wordRestrictions}/playout")
     public Set<PlayOut> playOutSolution(@PathVariable String wordRestrictions,
                                         @RequestParam(defaultValue = "SIMPLE") DictionaryType wordList,
                                         @RequestParam(defaultValue = "SIMPLE") WordConfig wordConfig,
                                         @RequestParam(defaultValue = "false") boolean hardMode,
-                                        @RequestParam(defaultValue = "0") int guess
+                                        @RequestParam(defaultValue = "0") int guess,
+                                        @RequestParam(defaultValue = "0") int timeoutSeconds
+    ) {
+        long start = System.nanoTime();
+        try {
+            log.info("Playout requested with configuration {}", wordConfig);
+            if (timeoutSeconds > 0) {
+                return solvleService.playOutSolutions(wordRestrictions.toLowerCase(), wordList, wordConfig, hardMode, guess,
+                        Instant.now().plusSeconds(timeoutSeconds), playOut -> {});
+            }
+            return solvleService.playOutSolutions(wordRestrictions.toLowerCase(), wordList, wordConfig, hardMode, guess);
+        } finally {
+            requestMetrics.record(Endpoint.PLAYOUT, wordList, wordConfig, start);
+        }
+    }
+
+    /**
+     * Same as {@link #playOutSolution}, but sends each word's {@link PlayOut} as a server-sent event as soon as it is
+     * done, and completes the stream once every word is played out or the timeout has passed.
+     */
+    @GetMapping("/{wordRestrictions}/playout/stream")
+    public SseEmitter streamPlayOutSolution(@PathVariable String wordRestrictions,
+                                            @RequestParam(defaultValue = "SIMPLE") DictionaryType wordList,
+                                            @RequestParam(defaultValue = "SIMPLE") WordConfig wordConfig,
+                                            @RequestParam(defaultValue = "false") boolean hardMode,
+                                            @RequestParam(defaultValue = "0") int guess,
+                                            @RequestParam(defaultValue = "60") int timeoutSeconds
     ) {
+        long start = System.nanoTime();
+        log.info("Streaming playout requested with configuration {}", wordConfig);
+        Duration timeout = Duration.ofSeconds(Math.max(timeoutSeconds, 1));
+        //leave time for the last word in progress to be sent after the deadline
+        SseEmitter emitter = new SseEmitter(timeout.plusSeconds(30).toMillis());
+        try {
+            solvleService.playOutSolutionsAsync(wordRestrictions.toLowerCase(), wordList, wordConfig, hardMode, guess, timeout, playOut -> send(emitter, playOut))
+                    .whenComplete((result, e) -> {
+                        requestMetrics.record(Endpoint.PLAYOUT_STREAM, wordList, wordConfig, start);
+                        if (e != null) {
+                            log.error("Streaming playout for {} failed", wordRestrictions, e);
+                            emitter.completeWithError(e);
+                        } else {
+                            emitter.complete();
+                        }
+                    });
+        } catch (RuntimeException e) {
+            //the stream never started, so it won't complete either
+            requestMetrics.record(Endpoint.PLAYOUT_STREAM, wordList, wordConfig, start);
+            throw e;
+        }
+        return emitter;
+    }
 
+    private static Duration elapsed(long startNanos) {
+        return Duration.ofNanos(System.nanoTime() - startNanos);
+    }
 
-        logRequestsCount();
-        log.info("Playout requested with configuration {}", wordConfig);
-        Set<PlayOut> result = solvleService.playOutSolutions(wordRestrictions.toLowerCase(), wordList, wordConfig, hardMode, guess);
-        return result;
+    private static void send(SseEmitter emitter, PlayOut playOut) {
+        //playouts finish on several threads, and the emitter expects one sender at a time
+        synchronized (emitter) {
+            try {
+                emitter.send(playOut);
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Unable to send playout for {}: {}", playOut.word(), e.getMessage());
+            }
+        }
     }
 
     @GetMapping("/solve/{solution}")
@@ -152,10 +258,14 @@ public class SolvleController {
                                     @RequestParam(defaultValue = "false") boolean hardMode,
                                     @RequestParam(defaultValue = "false") boolean requireAnswer
                                     ) {
-        logRequestsCount();
-        log.info("Solution requested for [{}] with first word [{}] and configuration {}", solution, firstWord, wordConfig);
-        Solver solver = new RemainingSolver(solvleService, wordConfig.config.withHardMode(hardMode).withRequireAnswer(requireAnswer));
-        return solvleService.solveWord(solver, new Word(solution.toLowerCase()), firstWord.toLowerCase(), wordList);
+        long start = System.nanoTime();
+        try {
+            log.info("Solution requested for [{}] with first word [{}] and configuration {}", solution, firstWord, wordConfig);
+            DecisionTreeKey key = new DecisionTreeKey(wordList, wordConfig, hardMode, requireAnswer);
+            return solvleService.solveWord(key, new Word(solution.toLowerCase()), firstWord.toLowerCase());
+        } finally {
+            requestMetrics.record(Endpoint.SOLVE, wordList, wordConfig, start);
+        }
     }
 
     @GetMapping("/rate/{solution}")
@@ -166,22 +276,51 @@ public class SolvleController {
                                     @RequestParam(defaultValue = "false") boolean hardMode,
                                     @RequestParam(defaultValue = "false") boolean requireAnswer
                                     ) {
-        logRequestsCount();
-        log.info("Solution requested for [{}] with guesses {} and configuration {}", solution, guesses, wordConfig);
-        Solver solver = new RemainingSolver(solvleService, wordConfig.config.withHardMode(hardMode).withRequireAnswer(requireAnswer));
-        List<String> lowerGuesses = guesses.stream().map(String::toLowerCase).collect(Collectors.toList());
-        return solvleService.rateGame(solution.toLowerCase(), lowerGuesses, wordList, wordConfig, hardMode, requireAnswer);
+        long start = System.nanoTime();
+        try {
+            log.info("Solution requested for [{}] with guesses {} and configuration {}", solution, guesses, wordConfig);
+            Solver solver = new RemainingSolver(solvleService, wordConfig.config.withHardMode(hardMode).withRequireAnswer(requireAnswer));
+            List<String> lowerGuesses = guesses.stream().map(String::toLowerCase).collect(Collectors.toList());
+            return solvleService.rateGame(solution.toLowerCase(), lowerGuesses, wordList, wordConfig, hardMode, requireAnswer);
+        } finally {
+            requestMetrics.record(Endpoint.RATE, wordList, wordConfig, start);
+        }
     }
 
-    private void logRequestsCount() {
-        logRequestsCount(LocalDateTime.now());
+    /**
+     * Request latencies by endpoint, dictionary and configuration, plus cache, prefetch and execution plan stats, for
+     * Prometheus to scrape.
+     */
+    @GetMapping(value = "/metrics", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public String getMetrics() {
+        return requestMetrics.toPrometheus(getCacheStats(), prefetchService.getStats(), ExecutionPlanner.common().stats());
     }
 
-    private static synchronized void logRequestsCount(LocalDateTime now) {
-        if (requestsSinceLoading++ % 1000 == 0 || MINUTES.between(lastRequestLogTime, now) > 29) {
-            double requestPerHour = (double) requestsSinceLoading * 60 / (double) MINUTES.between(startTime, now);
-            log.info("{} requests made since {} ({} per hour)", requestsSinceLoading, startTime, requestPerHour);
-            lastRequestLogTime = now;
-        }
+    @GetMapping("/stats/cache")
+    public List<CacheStatsDTO> getCacheStats() {
+        return cacheManager.getCacheNames().stream()
+                .sorted()
+                .map(cacheManager::getCache)
+                .filter(cache -> cache instanceof CaffeineCache)
+                .map(cache -> CacheStatsDTO.of(cache.getName(), ((CaffeineCache) cache).getNativeCache()))
+                .toList();
+    }
+
+    @GetMapping("/stats/prefetch")
+    public PrefetchStatsDTO getPrefetchStats() {
+        return prefetchService.getStats();
+    }
+
+    /**
+     * Readiness check for load balancers: 503 until the startup pipeline has warmed everything, along with the time
+     * taken by each phase so far. Profiles without the pipeline are always ready.
+     */
+    @GetMapping("/stats/startup")
+    public ResponseEntity<StartupStatusDTO> getStartupStatus() {
+        PreloadService preload = preloadService.getIfAvailable();
+        StartupStatusDTO status = preload == null
+                ? StartupStatusDTO.of(true, Map.of())
+                : StartupStatusDTO.of(preload.isReady(), preload.getPhaseTimings());
+        return status.ready() ? ResponseEntity.ok(status) : ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(status);
     }
 }
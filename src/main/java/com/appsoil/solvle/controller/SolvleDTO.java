@@ -13,6 +13,8 @@ import java.util.concurrent.atomic.LongAdder;
  * @param wordList              A list of viable solutions, prioritized by letter match criteria
  * @param fishingWords          A list of all possible guesses disregarding restrictions, prioritized by letter match criteria
  * @param bestWords             A list of guesses that minimize the average wordList for possible current viable words
+ * @param bestWordsComplete     False if bestWords only ranks part of the candidate guesses, because there were too many
+ *                              viable words to partition or the time allowed for partitioning ran out
  * @param totalWords            Total number of viable words (returned wordList includes only top x words)
  * @param wordsWithCharacter    A map of how many words containing each character (or total character match if bias enabled)
  * @param knownPositions        A list of common word groupings available for this position
@@ -22,12 +24,13 @@ public record SolvleDTO(
         Set<WordFrequencyScore> wordList,
         Set<WordFrequencyScore> fishingWords,
         Set<WordFrequencyScore> bestWords,
+        boolean bestWordsComplete,
         int totalWords,
         Map<Character, LongAdder> wordsWithCharacter,
         List<KnownPositionDTO> knownPositions
 ) {
 
     public static SolvleDTO appendRestrictionString(String restrictionString, SolvleDTO o) {
-        return new SolvleDTO(restrictionString, o.wordList, o.fishingWords, o.bestWords, o.totalWords, o.wordsWithCharacter, o.knownPositions);
+        return new SolvleDTO(restrictionString, o.wordList, o.fishingWords, o.bestWords, o.bestWordsComplete, o.totalWords, o.wordsWithCharacter, o.knownPositions);
     }
 }
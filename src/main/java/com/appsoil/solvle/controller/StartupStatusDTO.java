@@ -0,0 +1,18 @@
+package com.appsoil.solvle.controller;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @param ready       True once the startup pipeline has finished warming dictionaries, indexes and decision trees
+ * @param phaseMillis How long each finished startup phase took, in milliseconds
+ */
+public record StartupStatusDTO(boolean ready, Map<String, Long> phaseMillis) {
+
+    public static StartupStatusDTO of(boolean ready, Map<String, Duration> phaseTimings) {
+        Map<String, Long> phaseMillis = new LinkedHashMap<>();
+        phaseTimings.forEach((phase, duration) -> phaseMillis.put(phase, duration.toMillis()));
+        return new StartupStatusDTO(ready, phaseMillis);
+    }
+}
@@ -0,0 +1,55 @@
+package com.appsoil.solvle.data;
+
+import java.util.Arrays;
+
+/**
+ * Fixed indexing of every letter used by the bundled dictionaries, so that words can be stored as small arrays
+ * of alphabet indexes and 64-bit letter masks instead of character maps. All dictionaries share one alphabet
+ * because words are routinely compared across them (fishing words against solutions, restriction strings
+ * against both).
+ */
+public final class Alphabet {
+
+    //english letters first so most masks only use the low bits
+    private static final String LETTERS = "abcdefghijklmnopqrstuvwxyzáàäæéêíðñóößúüýþ";
+
+    public static final int SIZE = LETTERS.length();
+
+    //every letter in LETTERS is in the latin-1 range, so a 256 entry table covers all lookups
+    private static final byte[] INDEXES = new byte[256];
+
+    static {
+        Arrays.fill(INDEXES, (byte) -1);
+        for (int i = 0; i < SIZE; i++) {
+            INDEXES[LETTERS.charAt(i)] = (byte) i;
+        }
+    }
+
+    private Alphabet() {
+    }
+
+    /**
+     * @return the index of this letter, or -1 if it is not part of the alphabet
+     */
+    public static int indexOf(char c) {
+        return c < INDEXES.length ? INDEXES[c] : -1;
+    }
+
+    public static char letterAt(int index) {
+        return LETTERS.charAt(index);
+    }
+
+    /**
+     * Creates a mask with a bit set for each letter in the provided string. Letters outside the alphabet are ignored.
+     */
+    public static long mask(CharSequence letters) {
+        long mask = 0;
+        for (int i = 0; i < letters.length(); i++) {
+            int index = indexOf(letters.charAt(i));
+            if (index >= 0) {
+                mask |= 1L << index;
+            }
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,170 @@
+package com.appsoil.solvle.data;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Table of how many words contain each letter, stored as int[position][alphabet index]. Counts that are not broken
+ * down by position use a single row. Letters outside the {@link Alphabet} are rare (test data, punctuation) and are
+ * kept in a small side map so they can still be scored.
+ *
+ * Not thread safe. Parallel callers should fill one instance per thread and combine them with {@link #add}.
+ */
+public class CharacterCounts {
+
+    private final int[][] counts;
+    private final Map<Character, int[]> otherCounts = new HashMap<>();
+
+    public CharacterCounts(int positions) {
+        this.counts = new int[positions][Alphabet.SIZE];
+    }
+
+    public int positions() {
+        return counts.length;
+    }
+
+    /**
+     * @param position 0-based position
+     * @return the count for this letter in the position, or 0 if the position is not in this table
+     */
+    public int count(int position, char c) {
+        if (position >= counts.length) {
+            return 0;
+        }
+        int index = Alphabet.indexOf(c);
+        if (index >= 0) {
+            return counts[position][index];
+        }
+        int[] other = otherCounts.get(c);
+        return other == null ? 0 : other[position];
+    }
+
+    /**
+     * Same as {@link #count(int, char)}, for callers that already have the alphabet index.
+     */
+    public int countIndex(int position, int alphabetIndex) {
+        return position < counts.length ? counts[position][alphabetIndex] : 0;
+    }
+
+    /**
+     * @return the count for this letter summed across all positions
+     */
+    public int total(char c) {
+        int total = 0;
+        for (int pos = 0; pos < counts.length; pos++) {
+            total += count(pos, c);
+        }
+        return total;
+    }
+
+    public int totalIndex(int alphabetIndex) {
+        int total = 0;
+        for (int[] row : counts) {
+            total += row[alphabetIndex];
+        }
+        return total;
+    }
+
+    public void increment(int position, char c) {
+        int index = Alphabet.indexOf(c);
+        if (index >= 0) {
+            counts[position][index]++;
+        } else {
+            otherCounts.computeIfAbsent(c, k -> new int[counts.length])[position]++;
+        }
+    }
+
+    /**
+     * Adds the counts from another table of the same size into this one.
+     * @return this table
+     */
+    public CharacterCounts add(CharacterCounts other) {
+        for (int pos = 0; pos < counts.length; pos++) {
+            int[] row = counts[pos];
+            int[] otherRow = other.counts[pos];
+            for (int i = 0; i < row.length; i++) {
+                row[i] += otherRow[i];
+            }
+        }
+        other.otherCounts.forEach((c, otherRow) -> {
+            int[] row = otherCounts.computeIfAbsent(c, k -> new int[counts.length]);
+            for (int pos = 0; pos < row.length; pos++) {
+                row[pos] += otherRow[pos];
+            }
+        });
+        return this;
+    }
+
+    public CharacterCounts copy() {
+        return new CharacterCounts(counts.length).add(this);
+    }
+
+    /**
+     * Sets the count for this letter to 0 in every position.
+     */
+    public void remove(char c) {
+        int index = Alphabet.indexOf(c);
+        if (index >= 0) {
+            for (int[] row : counts) {
+                row[index] = 0;
+            }
+        } else {
+            otherCounts.remove(c);
+        }
+    }
+
+    /**
+     * Sets every count in this position to 0.
+     */
+    public void clear(int position) {
+        counts[position] = new int[Alphabet.SIZE];
+        otherCounts.values().forEach(row -> row[position] = 0);
+    }
+
+    /**
+     * Sets every count in this position to 0 except for the given letter.
+     */
+    public void retain(int position, char c) {
+        int count = count(position, c);
+        clear(position);
+        if (count > 0) {
+            int index = Alphabet.indexOf(c);
+            if (index >= 0) {
+                counts[position][index] = count;
+            } else {
+                otherCounts.get(c)[position] = count;
+            }
+        }
+    }
+
+    /**
+     * @return the non-zero counts for this position, in alphabet order followed by any other letters
+     */
+    public Map<Character, Integer> letters(int position) {
+        Map<Character, Integer> letters = new LinkedHashMap<>();
+        for (int i = 0; i < Alphabet.SIZE; i++) {
+            if (counts[position][i] > 0) {
+                letters.put(Alphabet.letterAt(i), counts[position][i]);
+            }
+        }
+        otherCounts.forEach((c, row) -> {
+            if (row[position] > 0) {
+                letters.put(c, row[position]);
+            }
+        });
+        return letters;
+    }
+
+    /**
+     * Converts the table into a map of each letter to its count summed across all positions, for API responses.
+     */
+    public Map<Character, LongAdder> toMap() {
+        Map<Character, LongAdder> map = new HashMap<>();
+        for (int pos = 0; pos < counts.length; pos++) {
+            letters(pos).forEach((c, count) -> map.computeIfAbsent(c, k -> new LongAdder()).add(count));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,199 @@
+package com.appsoil.solvle.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The full set of guesses a solver makes for one dictionary and configuration, stored as a tree. Each node is a
+ * guess, and each child is the node reached when that guess produces a given {@link FeedbackMatrix} code. Following
+ * the feedback from the root gives the same guesses as running the solver, without analyzing any word lists. Each node
+ * also keeps the score of the best fishing word in its state, which is all that rating a game needs from the analysis.
+ *
+ * Children are stored in one flat array per tree (sorted by code within each node) so that lookups are a short
+ * binary search and the binary form is only a few bytes per node.
+ */
+public class DecisionTree {
+
+    public static final int ROOT = 0;
+
+    private static final int MAGIC = 0x534C5654; //"SLVT"
+    private static final int VERSION = 2;
+
+    private final long fingerprint;
+    private final String[] words;
+    private final int[] nodeWords;
+    private final double[] fishingScores;
+    private final int[] childOffsets; //children of node n are at childOffsets[n] until childOffsets[n + 1]
+    private final short[] childCodes;
+    private final int[] childNodes;
+
+    private DecisionTree(long fingerprint, String[] words, int[] nodeWords, double[] fishingScores, int[] childOffsets, short[] childCodes, int[] childNodes) {
+        this.fingerprint = fingerprint;
+        this.words = words;
+        this.nodeWords = nodeWords;
+        this.fishingScores = fishingScores;
+        this.childOffsets = childOffsets;
+        this.childCodes = childCodes;
+        this.childNodes = childNodes;
+    }
+
+    /**
+     * @return identifies the dictionary and configuration this tree was built from, so stale trees can be discarded
+     */
+    public long fingerprint() {
+        return fingerprint;
+    }
+
+    public int size() {
+        return nodeWords.length;
+    }
+
+    public String guess(int node) {
+        return words[nodeWords[node]];
+    }
+
+    /**
+     * @return the frequency score of the top fishing word in the state at this node
+     */
+    public double fishingScore(int node) {
+        return fishingScores[node];
+    }
+
+    /**
+     * @return the node to use after the guess at this node produced the code, or -1 if no solution gives that code
+     */
+    public int child(int node, int code) {
+        int index = Arrays.binarySearch(childCodes, childOffsets[node], childOffsets[node + 1], (short) code);
+        return index < 0 ? -1 : childNodes[index];
+    }
+
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(fingerprint);
+        data.writeInt(words.length);
+        for (String word : words) {
+            data.writeUTF(word);
+        }
+        data.writeInt(nodeWords.length);
+        for (int node = 0; node < nodeWords.length; node++) {
+            data.writeInt(nodeWords[node]);
+            data.writeDouble(fishingScores[node]);
+            data.writeShort(childOffsets[node + 1] - childOffsets[node]);
+            for (int i = childOffsets[node]; i < childOffsets[node + 1]; i++) {
+                data.writeShort(childCodes[i]);
+                data.writeInt(childNodes[i]);
+            }
+        }
+        data.flush();
+    }
+
+    public static DecisionTree read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a decision tree file");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported decision tree version " + version);
+        }
+        long fingerprint = data.readLong();
+        String[] words = new String[data.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = data.readUTF();
+        }
+        int nodeCount = data.readInt();
+        int[] nodeWords = new int[nodeCount];
+        double[] fishingScores = new double[nodeCount];
+        int[] childOffsets = new int[nodeCount + 1];
+        //every node but the root is some node's child
+        short[] childCodes = new short[Math.max(nodeCount - 1, 0)];
+        int[] childNodes = new int[childCodes.length];
+        int offset = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            nodeWords[node] = data.readInt();
+            if (nodeWords[node] < 0 || nodeWords[node] >= words.length) {
+                throw new IOException("Decision tree node " + node + " has an unknown guess");
+            }
+            fishingScores[node] = data.readDouble();
+            int children = data.readShort();
+            childOffsets[node] = offset;
+            if (offset + children > childCodes.length) {
+                throw new IOException("Decision tree has more children than nodes");
+            }
+            for (int i = 0; i < children; i++) {
+                childCodes[offset] = data.readShort();
+                childNodes[offset] = data.readInt();
+                if (childNodes[offset] <= node || childNodes[offset] >= nodeCount) {
+                    throw new IOException("Decision tree node " + node + " has an invalid child");
+                }
+                offset++;
+            }
+        }
+        childOffsets[nodeCount] = offset;
+        return new DecisionTree(fingerprint, words, nodeWords, fishingScores, childOffsets, childCodes, childNodes);
+    }
+
+    /**
+     * Collects nodes in any order and packs them into a tree. Nodes are numbered in the order they are added, so the
+     * first node added is the {@link #ROOT}.
+     */
+    public static class Builder {
+        private final long fingerprint;
+        private final List<String> words = new ArrayList<>();
+        private final Map<String, Integer> wordIndexes = new HashMap<>();
+        private final List<Integer> nodeWords = new ArrayList<>();
+        private final List<Double> fishingScores = new ArrayList<>();
+        private final List<Map<Integer, Integer>> children = new ArrayList<>();
+
+        public Builder(long fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        /**
+         * @return the new node's number
+         */
+        public int addNode(String guess, double fishingScore) {
+            fishingScores.add(fishingScore);
+            nodeWords.add(wordIndexes.computeIfAbsent(guess, word -> {
+                words.add(word);
+                return words.size() - 1;
+            }));
+            children.add(new HashMap<>());
+            return nodeWords.size() - 1;
+        }
+
+        public void addChild(int parent, int code, int child) {
+            children.get(parent).put(code, child);
+        }
+
+        public DecisionTree build() {
+            int nodeCount = nodeWords.size();
+            int[] childOffsets = new int[nodeCount + 1];
+            int childCount = children.stream().mapToInt(Map::size).sum();
+            short[] childCodes = new short[childCount];
+            int[] childNodes = new int[childCount];
+            int offset = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                childOffsets[node] = offset;
+                for (Map.Entry<Integer, Integer> entry : children.get(node).entrySet().stream().sorted(Map.Entry.comparingByKey()).toList()) {
+                    childCodes[offset] = entry.getKey().shortValue();
+                    childNodes[offset] = entry.getValue();
+                    offset++;
+                }
+            }
+            childOffsets[nodeCount] = offset;
+            return new DecisionTree(fingerprint, words.toArray(String[]::new),
+                    nodeWords.stream().mapToInt(Integer::intValue).toArray(), fishingScores.stream().mapToDouble(Double::doubleValue).toArray(), childOffsets, childCodes, childNodes);
+        }
+    }
+}
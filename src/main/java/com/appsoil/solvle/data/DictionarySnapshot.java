@@ -0,0 +1,135 @@
+package com.appsoil.solvle.data;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Binary form of a {@link Dictionary}, so that it can be loaded with one read instead of parsing, sorting and
+ * de-duplicating the word list text.
+ *
+ * The file starts with a header (magic, version and a checksum of the source word list, so the build can tell when a
+ * snapshot is stale) followed by each group of words with the same length. Groups where every word has packed letters store
+ * one {@link Alphabet} index byte per letter, with the words back to back in dictionary order so that each word's
+ * ordering id is its position. Any other group stores its words as length-prefixed UTF-8.
+ */
+public final class DictionarySnapshot {
+
+    private static final int MAGIC = 0x534C5644; //"SLVD"
+    private static final int VERSION = 1;
+
+    private DictionarySnapshot() {
+    }
+
+    public static void write(Dictionary dictionary, long checksum, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(checksum);
+        Map<Integer, Set<Word>> groups = new TreeMap<>(dictionary.wordsBySize());
+        data.writeInt(groups.size());
+        for (Map.Entry<Integer, Set<Word>> group : groups.entrySet()) {
+            List<Word> words = group.getValue().stream().sorted().toList();
+            boolean packed = words.stream().allMatch(Word::hasPackedLetters);
+            data.writeInt(group.getKey());
+            data.writeInt(words.size());
+            data.writeBoolean(packed);
+            for (Word word : words) {
+                if (packed) {
+                    for (int i = 0; i < word.getLength(); i++) {
+                        data.writeByte(word.letterIndex(i));
+                    }
+                } else {
+                    byte[] bytes = word.word().getBytes(StandardCharsets.UTF_8);
+                    data.writeInt(bytes.length);
+                    data.write(bytes);
+                }
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * @param buffer   The snapshot contents, positioned at the start
+     * @param checksum Checksum of the current source word list
+     * @return the dictionary, or null if the snapshot was made from a different word list
+     * @throws IOException if the buffer does not hold a supported snapshot
+     */
+    public static Dictionary read(ByteBuffer buffer, long checksum) throws IOException {
+        return readChecksum(buffer) == checksum ? readWords(buffer) : null;
+    }
+
+    /**
+     * Reads the snapshot without comparing it to the source word list, which is left to the build.
+     * @param buffer The snapshot contents, positioned at the start
+     * @throws IOException if the buffer does not hold a supported snapshot
+     */
+    public static Dictionary read(ByteBuffer buffer) throws IOException {
+        readChecksum(buffer);
+        return readWords(buffer);
+    }
+
+    /**
+     * @param buffer The snapshot contents, positioned at the start. Left positioned after the header.
+     * @return the checksum of the word list the snapshot was made from
+     * @throws IOException if the buffer does not hold a supported snapshot
+     */
+    public static long readChecksum(ByteBuffer buffer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a dictionary snapshot");
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported dictionary snapshot version " + version);
+            }
+            return buffer.getLong();
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated dictionary snapshot", e);
+        }
+    }
+
+    private static Dictionary readWords(ByteBuffer buffer) throws IOException {
+        try {
+            int groupCount = buffer.getInt();
+            Map<Integer, Set<Word>> wordsBySize = new HashMap<>();
+            for (int g = 0; g < groupCount; g++) {
+                int length = buffer.getInt();
+                int count = buffer.getInt();
+                boolean packed = buffer.get() != 0;
+                List<Word> words = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    if (packed) {
+                        byte[] letterIndexes = new byte[length];
+                        buffer.get(letterIndexes);
+                        for (byte index : letterIndexes) {
+                            if (index < 0 || index >= Alphabet.SIZE) {
+                                throw new IOException("Invalid letter in dictionary snapshot");
+                            }
+                        }
+                        words.add(Word.fromLetterIndexes(letterIndexes, i + 1));
+                    } else {
+                        byte[] bytes = new byte[buffer.getInt()];
+                        buffer.get(bytes);
+                        words.add(new Word(new String(bytes, StandardCharsets.UTF_8), i + 1));
+                    }
+                }
+                //the dictionary numbers words in iteration order, so keep them in the stored order
+                wordsBySize.put(length, new LinkedHashSet<>(words));
+            }
+            return new Dictionary(wordsBySize);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("Truncated dictionary snapshot", e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.appsoil.solvle.data;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The guesses a solver makes for every solution in a dictionary, along with how many guesses they took.
+ *
+ * @param guesses  Guesses for each solution, ending with the solution
+ * @param counts   How many solutions took each number of guesses
+ * @param failures Guesses for each solution that took more than {@link #MAX_GUESSES}, longest first
+ */
+public record DictionarySolution(String firstWord, Map<String, List<String>> guesses, double mean, double standardDeviation,
+                                 double median, int max, Map<Integer, Long> counts, List<List<String>> failures) {
+
+    public static final int MAX_GUESSES = 6;
+
+    public static DictionarySolution of(Map<String, List<String>> guesses) {
+        DescriptiveStatistics stats = new DescriptiveStatistics();
+        guesses.values().forEach(solution -> stats.addValue(solution.size()));
+        Map<Integer, Long> counts = Arrays.stream(stats.getSortedValues()).mapToInt(num -> (int) num).boxed()
+                .collect(Collectors.groupingBy(Function.identity(), TreeMap::new, Collectors.counting()));
+        List<List<String>> failures = guesses.values().stream()
+                .filter(solution -> solution.size() > MAX_GUESSES)
+                .sorted(Comparator.comparingInt((List<String> solution) -> solution.size()).reversed())
+                .toList();
+        String firstWord = guesses.values().stream().findFirst().map(solution -> solution.get(0)).orElse("");
+        return new DictionarySolution(firstWord, guesses, stats.getMean(), stats.getStandardDeviation(),
+                stats.getPercentile(50), (int) stats.getMax(), counts, failures);
+    }
+}
@@ -0,0 +1,150 @@
+package com.appsoil.solvle.data;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Precomputed table of the feedback pattern (gray/yellow/green) produced by every guess against every answer in a
+ * dictionary. Each pattern is stored as a base-3 code in a single byte, where position i contributes
+ * digit * 3^i (0 = gray, 1 = yellow, 2 = green). Built once per dictionary so that partitioning only needs
+ * array lookups instead of generating new {@link WordRestrictions} for every (guess, solution) pair.
+ */
+public class FeedbackMatrix {
+
+    public static final int GRAY = 0;
+    public static final int YELLOW = 1;
+    public static final int GREEN = 2;
+
+    //3^5 = 243 patterns, which is the most that fit in a byte
+    public static final int MAX_WORD_LENGTH = 5;
+
+    private final int wordLength;
+    private final int answerCount;
+    private final Map<Word, Integer> guessIndexes;
+    private final Map<Word, Integer> answerIndexes;
+    private final byte[] codes;
+
+    public FeedbackMatrix(List<Word> guesses, List<Word> answers) {
+        this.wordLength = answers.isEmpty() ? 0 : answers.get(0).getLength();
+        if (wordLength > MAX_WORD_LENGTH) {
+            throw new IllegalArgumentException("Feedback matrix only supports words up to " + MAX_WORD_LENGTH + " letters");
+        }
+        this.answerCount = answers.size();
+        this.guessIndexes = indexWords(guesses);
+        this.answerIndexes = indexWords(answers);
+        this.codes = new byte[guesses.size() * answerCount];
+
+        IntStream.range(0, guesses.size()).parallel().forEach(g -> {
+            Word guess = guesses.get(g);
+            int offset = g * answerCount;
+            for (int a = 0; a < answerCount; a++) {
+                codes[offset + a] = (byte) computeCode(guess, answers.get(a));
+            }
+        });
+    }
+
+    private static Map<Word, Integer> indexWords(List<Word> words) {
+        Map<Word, Integer> indexes = new HashMap<>(words.size() * 2);
+        for (int i = 0; i < words.size(); i++) {
+            indexes.putIfAbsent(words.get(i), i);
+        }
+        return indexes;
+    }
+
+    /**
+     * @return the index of this word in the guess dimension, or -1 if it was not part of the matrix
+     */
+    public int guessIndex(Word guess) {
+        return guess.getLength() == wordLength ? guessIndexes.getOrDefault(guess, -1) : -1;
+    }
+
+    /**
+     * @return the index of this word in the answer dimension, or -1 if it was not part of the matrix
+     */
+    public int answerIndex(Word answer) {
+        return answer.getLength() == wordLength ? answerIndexes.getOrDefault(answer, -1) : -1;
+    }
+
+    public int code(int guessIndex, int answerIndex) {
+        return codes[guessIndex * answerCount + answerIndex] & 0xFF;
+    }
+
+    /**
+     * Looks up the feedback code for a pair of words, falling back to computing it directly if
+     * either word is missing from the matrix.
+     */
+    public int code(Word guess, Word answer) {
+        int g = guessIndex(guess);
+        int a = answerIndex(answer);
+        if (g < 0 || a < 0) {
+            return computeCode(guess, answer);
+        }
+        return code(g, a);
+    }
+
+    public int getWordLength() {
+        return wordLength;
+    }
+
+    public int getGuessCount() {
+        return guessIndexes.size();
+    }
+
+    public int getAnswerCount() {
+        return answerCount;
+    }
+
+    /**
+     * @return the number of distinct codes possible for words of this length (3^length)
+     */
+    public static int patternCount(int wordLength) {
+        int count = 1;
+        for (int i = 0; i < wordLength; i++) {
+            count *= 3;
+        }
+        return count;
+    }
+
+    /**
+     * Calculates the feedback pattern the game would show for a guess against a given answer. Greens are
+     * assigned first, then yellows from left to right while unmatched copies of the letter remain in the answer.
+     * @param guess The guessed word
+     * @param answer The solution
+     * @return base-3 encoded pattern, where position i contributes digit * 3^i
+     */
+    public static int computeCode(Word guess, Word answer) {
+        String g = guess.word();
+        String a = answer.word();
+        int len = g.length();
+        int used = 0; //bitmask of answer positions already matched to a guess letter
+        int[] digits = new int[len];
+
+        for (int i = 0; i < len; i++) {
+            if (g.charAt(i) == a.charAt(i)) {
+                digits[i] = GREEN;
+                used |= 1 << i;
+            }
+        }
+        for (int i = 0; i < len; i++) {
+            if (digits[i] == GREEN) {
+                continue;
+            }
+            char c = g.charAt(i);
+            for (int j = 0; j < len; j++) {
+                if ((used & (1 << j)) == 0 && a.charAt(j) == c) {
+                    digits[i] = YELLOW;
+                    used |= 1 << j;
+                    break;
+                }
+            }
+        }
+
+        int code = 0;
+        for (int i = len - 1; i >= 0; i--) {
+            code = code * 3 + digits[i];
+        }
+        return code;
+    }
+}
@@ -0,0 +1,127 @@
+package com.appsoil.solvle.data;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@link WordRestrictions} compiled into {@link Alphabet} masks so that packed words can be checked without any
+ * boxing or map lookups. Compile once per restriction and reuse it for every word being tested.
+ */
+public final class PackedRestrictions {
+
+    private final long availableMask;
+    private final long requiredMask;
+    private final boolean satisfiable;
+    private final int[] positionLetters; //alphabet index required at each 0-based position, or -1
+    private final long[] positionExclusions; //mask of letters not allowed at each 0-based position
+    private final int[] minimumIndexes;
+    private final int[] minimumCounts;
+
+    private PackedRestrictions(long availableMask, long requiredMask, boolean satisfiable, int[] positionLetters,
+                               long[] positionExclusions, int[] minimumIndexes, int[] minimumCounts) {
+        this.availableMask = availableMask;
+        this.requiredMask = requiredMask;
+        this.satisfiable = satisfiable;
+        this.positionLetters = positionLetters;
+        this.positionExclusions = positionExclusions;
+        this.minimumIndexes = minimumIndexes;
+        this.minimumCounts = minimumCounts;
+    }
+
+    public static PackedRestrictions of(WordRestrictions restrictions) {
+        //letters outside the alphabet can never appear in a packed word, so requiring one means nothing will match
+        boolean satisfiable = true;
+
+        long requiredMask = 0;
+        for (char c : restrictions.requiredLetters()) {
+            int index = Alphabet.indexOf(c);
+            if (index < 0) {
+                satisfiable = false;
+            } else {
+                requiredMask |= 1L << index;
+            }
+        }
+
+        int maxPosition = 0;
+        for (int pos : restrictions.letterPositions().keySet()) {
+            maxPosition = Math.max(maxPosition, pos);
+        }
+        for (int pos : restrictions.positionExclusions().keySet()) {
+            maxPosition = Math.max(maxPosition, pos);
+        }
+        int[] positionLetters = new int[maxPosition];
+        long[] positionExclusions = new long[maxPosition];
+        Arrays.fill(positionLetters, -1);
+        for (Map.Entry<Integer, Character> entry : restrictions.letterPositions().entrySet()) {
+            int index = Alphabet.indexOf(entry.getValue());
+            if (index < 0 || entry.getKey() < 1) {
+                satisfiable = false;
+            } else {
+                positionLetters[entry.getKey() - 1] = index;
+            }
+        }
+        for (Map.Entry<Integer, Set<Character>> entry : restrictions.positionExclusions().entrySet()) {
+            if (entry.getKey() > 0) {
+                for (char c : entry.getValue()) {
+                    int index = Alphabet.indexOf(c);
+                    if (index >= 0) {
+                        positionExclusions[entry.getKey() - 1] |= 1L << index;
+                    }
+                }
+            }
+        }
+
+        Map<Character, Integer> minimums = restrictions.minimumLetterFrequencies();
+        int[] minimumIndexes = new int[minimums.size()];
+        int[] minimumCounts = new int[minimums.size()];
+        int i = 0;
+        for (Map.Entry<Character, Integer> entry : minimums.entrySet()) {
+            int index = Alphabet.indexOf(entry.getKey());
+            if (index < 0 && entry.getValue() > 0) {
+                satisfiable = false;
+            }
+            minimumIndexes[i] = Math.max(index, 0);
+            minimumCounts[i] = index < 0 ? 0 : entry.getValue();
+            i++;
+        }
+
+        return new PackedRestrictions(Alphabet.mask(restrictions.word().word()), requiredMask, satisfiable,
+                positionLetters, positionExclusions, minimumIndexes, minimumCounts);
+    }
+
+    /**
+     * @param word A word with packed letters (see {@link Word#hasPackedLetters()})
+     * @return true if the word satisfies these restrictions
+     */
+    public boolean matches(Word word) {
+        long mask = word.letterMask();
+        if (!satisfiable || (mask & requiredMask) != requiredMask || (mask & ~availableMask) != 0) {
+            return false;
+        }
+
+        int length = word.getLength();
+        for (int i = 0; i < positionLetters.length; i++) {
+            if (i >= length) {
+                if (positionLetters[i] >= 0) {
+                    return false;
+                }
+                continue;
+            }
+            int index = word.letterIndex(i);
+            if (positionLetters[i] >= 0 && positionLetters[i] != index) {
+                return false;
+            }
+            if ((positionExclusions[i] & (1L << index)) != 0) {
+                return false;
+            }
+        }
+
+        for (int i = 0; i < minimumIndexes.length; i++) {
+            if (word.countIndex(minimumIndexes[i]) < minimumCounts[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
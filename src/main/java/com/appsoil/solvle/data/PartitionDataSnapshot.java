@@ -0,0 +1,89 @@
+package com.appsoil.solvle.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary form of the opening guess {@link PartitionStats} for a dictionary: the stats of every guess against the
+ * full primary set. These never change for a given dictionary and configuration, so they are computed once and
+ * reused across restarts.
+ *
+ * The file starts with a header (magic, version and a fingerprint of the dictionary and configuration, so stale
+ * data is ignored) followed by each guess and its stats.
+ */
+public final class PartitionDataSnapshot {
+
+    private static final int MAGIC = 0x534C5650; //"SLVP"
+    private static final int VERSION = 1;
+
+    private PartitionDataSnapshot() {
+    }
+
+    public static void write(Map<Word, PartitionStats> partitionData, long fingerprint, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeLong(fingerprint);
+        data.writeInt(partitionData.size());
+        for (Map.Entry<Word, PartitionStats> entry : partitionData.entrySet()) {
+            PartitionStats stats = entry.getValue();
+            data.writeUTF(entry.getKey().word());
+            data.writeDouble(stats.wordsRemaining());
+            data.writeInt(stats.groupCount());
+            data.writeDouble(stats.entropy());
+            List<String> ruts = stats.ruts() == null ? List.of() : stats.ruts();
+            data.writeInt(ruts.size());
+            for (String rut : ruts) {
+                data.writeUTF(rut);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * @param fingerprint Fingerprint of the current dictionary and configuration
+     * @return the stats of each guess, or null if the file was made from a different dictionary or configuration
+     * @throws IOException if the stream does not hold supported partition data
+     */
+    public static Map<Word, PartitionStats> read(InputStream in, long fingerprint) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a partition data file");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported partition data version " + version);
+        }
+        if (data.readLong() != fingerprint) {
+            return null;
+        }
+        int size = data.readInt();
+        if (size < 0) {
+            throw new IOException("Partition data has a negative size");
+        }
+        Map<Word, PartitionStats> partitionData = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            Word word = new Word(data.readUTF());
+            double wordsRemaining = data.readDouble();
+            int groupCount = data.readInt();
+            double entropy = data.readDouble();
+            int rutCount = data.readInt();
+            if (rutCount < 0) {
+                throw new IOException("Partition data for " + word.word() + " has a negative rut count");
+            }
+            List<String> ruts = new ArrayList<>(rutCount);
+            for (int r = 0; r < rutCount; r++) {
+                ruts.add(data.readUTF());
+            }
+            partitionData.put(word, new PartitionStats(wordsRemaining, groupCount, entropy, ruts));
+        }
+        return partitionData;
+    }
+}
@@ -0,0 +1,18 @@
+package com.appsoil.solvle.data;
+
+import java.util.Set;
+
+/**
+ * Words ranked by how well they partition the viable words, when ranking may have stopped before the whole pool
+ * was evaluated.
+ *
+ * @param words     The ranked words, best first
+ * @param evaluated Number of pool words that were evaluated
+ * @param poolSize  Number of words in the pool
+ */
+public record PartitionRanking(Set<WordFrequencyScore> words, int evaluated, int poolSize) {
+
+    public boolean complete() {
+        return evaluated >= poolSize;
+    }
+}
@@ -0,0 +1,43 @@
+package com.appsoil.solvle.data;
+
+/**
+ * A set of solutions partitioned by the combined feedback of a tuple of guesses. Solutions are stored grouped
+ * together, so adding one more guess to the tuple only needs to split each group by that guess's feedback instead
+ * of replaying the whole tuple against every solution.
+ */
+public final class TuplePartition {
+
+    private final Word[] solutions;
+    private final int[] groupStarts; //solutions in group g are at groupStarts[g] until groupStarts[g + 1]
+    private final int[] answerIndexes; //each solution's index in the feedback matrix, or -1
+
+    public TuplePartition(Word[] solutions, int[] groupStarts, int[] answerIndexes) {
+        this.solutions = solutions;
+        this.groupStarts = groupStarts;
+        this.answerIndexes = answerIndexes;
+    }
+
+    public int size() {
+        return solutions.length;
+    }
+
+    public int groupCount() {
+        return groupStarts.length - 1;
+    }
+
+    public int groupStart(int group) {
+        return groupStarts[group];
+    }
+
+    public int groupEnd(int group) {
+        return groupStarts[group + 1];
+    }
+
+    public Word solution(int index) {
+        return solutions[index];
+    }
+
+    public int answerIndex(int index) {
+        return answerIndexes[index];
+    }
+}
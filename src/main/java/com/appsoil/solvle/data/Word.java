@@ -5,42 +5,136 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Objects;
 
 public class Word implements Serializable, Comparable<Word> {
 
     private int order; //used to 'remember' alphabetical order for faster sorting
 
     private String word;
-    private Map<Character, Integer> letters;
+
+    //packed form of the letters, null if the word contains anything outside the Alphabet
+    private byte[] letterIndexes; //alphabet index of the letter at each position
+    private byte[] letterCounts; //number of times each alphabet letter appears
+    private long letterMask; //bit set for each alphabet letter present
 
     public Word(String word, int order){
         this.word = word;
-        this.letters = new HashMap<>();
+        this.order = order;
 
-        for(Character c : word.toCharArray()){
-            if(letters.containsKey(c)){
-                letters.put(c, letters.get(c) + 1);
-            } else {
-                letters.put(c,1);
+        if(word.length() > Byte.MAX_VALUE) {
+            return;
+        }
+        byte[] indexes = new byte[word.length()];
+        byte[] counts = new byte[Alphabet.SIZE];
+        long mask = 0;
+        for(int i = 0; i < word.length(); i++) {
+            int index = Alphabet.indexOf(word.charAt(i));
+            if(index < 0) {
+                return;
             }
+            indexes[i] = (byte) index;
+            counts[index]++;
+            mask |= 1L << index;
         }
-        this.order = order;
+        this.letterIndexes = indexes;
+        this.letterCounts = counts;
+        this.letterMask = mask;
     }
 
     public Word(String word) {
         this(word, 0);
     }
 
+    private Word(String word, int order, byte[] letterIndexes, byte[] letterCounts, long letterMask) {
+        this.word = word;
+        this.order = order;
+        this.letterIndexes = letterIndexes;
+        this.letterCounts = letterCounts;
+        this.letterMask = letterMask;
+    }
+
+    /**
+     * Creates a word from its packed letters, such as those stored in a {@link DictionarySnapshot}.
+     * @param letterIndexes alphabet index of the letter at each position. Kept by the word, so it must not be reused.
+     */
+    public static Word fromLetterIndexes(byte[] letterIndexes, int order) {
+        char[] letters = new char[letterIndexes.length];
+        byte[] counts = new byte[Alphabet.SIZE];
+        long mask = 0;
+        for(int i = 0; i < letterIndexes.length; i++) {
+            letters[i] = Alphabet.letterAt(letterIndexes[i]);
+            counts[letterIndexes[i]]++;
+            mask |= 1L << letterIndexes[i];
+        }
+        return new Word(new String(letters), order, letterIndexes, counts, mask);
+    }
+
     @JsonProperty("word")
     public String word() {
         return word;
     }
 
+    /**
+     * Builds a map of each letter to the number of times it appears. Prefer {@link #count(char)} and the packed
+     * accessors in hot paths, as this allocates a new map on every call.
+     */
     public Map<Character, Integer> letters() {
+        Map<Character, Integer> letters = new HashMap<>();
+        for(int i = 0; i < word.length(); i++) {
+            letters.merge(word.charAt(i), 1, Integer::sum);
+        }
         return letters;
     }
 
+    /**
+     * @return true if every letter of this word is in the {@link Alphabet}, so the packed accessors can be used
+     */
+    public boolean hasPackedLetters() {
+        return letterIndexes != null;
+    }
+
+    /**
+     * @return mask with a bit set for the alphabet index of each letter in this word. Only valid for packed words.
+     */
+    public long letterMask() {
+        return letterMask;
+    }
+
+    /**
+     * @return the alphabet index of the letter at this 0-based position. Only valid for packed words.
+     */
+    public int letterIndex(int position) {
+        return letterIndexes[position];
+    }
+
+    /**
+     * @return the number of times the letter with this alphabet index appears. Only valid for packed words.
+     */
+    public int countIndex(int alphabetIndex) {
+        return letterCounts[alphabetIndex];
+    }
+
+    /**
+     * @return the number of times this letter appears in the word
+     */
+    public int count(char c) {
+        if(letterIndexes != null) {
+            int index = Alphabet.indexOf(c);
+            return index < 0 ? 0 : letterCounts[index];
+        }
+        int count = 0;
+        for(int i = 0; i < word.length(); i++) {
+            if(word.charAt(i) == c) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean contains(char c) {
+        return count(c) > 0;
+    }
+
     public void setOrder(int order) {
         this.order = order;
     }
@@ -68,7 +162,8 @@ public class Word implements Serializable, Comparable<Word> {
 
     @Override
     public int hashCode() {
-        return Objects.hash(word);
+        //same value as Objects.hash(word), so set iteration order is unchanged, without allocating on every lookup
+        return 31 + word.hashCode();
     }
 
     public int getLength(){
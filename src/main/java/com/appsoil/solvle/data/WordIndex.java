@@ -0,0 +1,176 @@
+package com.appsoil.solvle.data;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Inverted index of a word set, stored as bitsets over the words (one bit per word, 64 words per long). Keeps a
+ * bitset for every (position, letter) pair and for every "contains letter at least k times" pair, so that a
+ * {@link WordRestrictions} can be evaluated with a handful of AND / AND NOT operations instead of checking every word.
+ *
+ * Words that can't be indexed (letters outside the {@link Alphabet}, or a different length from the rest of the set)
+ * are kept aside and checked individually.
+ */
+public class WordIndex {
+
+    private final Word[] words;
+    private final int wordLength;
+    private final int blocks;
+    private final long[] allWords;
+    private final long[][][] positionLetters; //[position][alphabet index] -> words with that letter in that position
+    private final long[][][] letterCounts; //[alphabet index][k - 1] -> words containing that letter at least k times
+    private final List<Word> unindexedWords;
+
+    public WordIndex(Collection<Word> wordSet) {
+        this.wordLength = wordSet.isEmpty() ? 0 : wordSet.iterator().next().getLength();
+        this.words = wordSet.stream()
+                .filter(w -> w.hasPackedLetters() && w.getLength() == wordLength)
+                .sorted()
+                .toArray(Word[]::new);
+        this.unindexedWords = wordSet.stream()
+                .filter(w -> !w.hasPackedLetters() || w.getLength() != wordLength)
+                .toList();
+        this.blocks = (words.length + 63) / 64;
+
+        this.allWords = new long[blocks];
+        this.positionLetters = new long[wordLength][Alphabet.SIZE][];
+        this.letterCounts = new long[Alphabet.SIZE][][];
+        for (int i = 0; i < words.length; i++) {
+            Word word = words[i];
+            int block = i >>> 6;
+            long bit = 1L << i;
+            allWords[block] |= bit;
+            for (int pos = 0; pos < wordLength; pos++) {
+                int letter = word.letterIndex(pos);
+                if (positionLetters[pos][letter] == null) {
+                    positionLetters[pos][letter] = new long[blocks];
+                }
+                positionLetters[pos][letter][block] |= bit;
+            }
+            for (long remaining = word.letterMask(); remaining != 0; remaining &= remaining - 1) {
+                int letter = Long.numberOfTrailingZeros(remaining);
+                int count = word.countIndex(letter);
+                if (letterCounts[letter] == null || letterCounts[letter].length < count) {
+                    long[][] counts = letterCounts[letter] == null ? new long[count][] : Arrays.copyOf(letterCounts[letter], count);
+                    for (int k = 0; k < count; k++) {
+                        if (counts[k] == null) {
+                            counts[k] = new long[blocks];
+                        }
+                    }
+                    letterCounts[letter] = counts;
+                }
+                for (int k = 0; k < count; k++) {
+                    letterCounts[letter][k][block] |= bit;
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds all words in the index that match the restrictions.
+     * @param restrictions The restrictions to evaluate
+     * @param fallback Check used for any words that could not be indexed
+     * @return a new set containing the matching words
+     */
+    public Set<Word> findMatchingWords(WordRestrictions restrictions, Predicate<Word> fallback) {
+        long[] matches = match(restrictions);
+        Set<Word> result = new HashSet<>();
+        for (int block = 0; block < blocks; block++) {
+            for (long bits = matches[block]; bits != 0; bits &= bits - 1) {
+                result.add(words[(block << 6) + Long.numberOfTrailingZeros(bits)]);
+            }
+        }
+        for (Word word : unindexedWords) {
+            if (fallback.test(word)) {
+                result.add(word);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Evaluates the restrictions against the indexed words.
+     * @return bitset with a bit set for each matching word, in {@link Word} order
+     */
+    public long[] match(WordRestrictions restrictions) {
+        long[] result = allWords.clone();
+
+        for (char c : restrictions.requiredLetters()) {
+            if (!and(result, atLeast(c, 1))) {
+                return result;
+            }
+        }
+        for (Map.Entry<Character, Integer> entry : restrictions.minimumLetterFrequencies().entrySet()) {
+            if (!and(result, atLeast(entry.getKey(), entry.getValue()))) {
+                return result;
+            }
+        }
+        for (Map.Entry<Integer, Character> entry : restrictions.letterPositions().entrySet()) {
+            int pos = entry.getKey() - 1;
+            int letter = Alphabet.indexOf(entry.getValue());
+            if (!and(result, pos < 0 || pos >= wordLength || letter < 0 ? null : positionLetters[pos][letter])) {
+                return result;
+            }
+        }
+        for (Map.Entry<Integer, Set<Character>> entry : restrictions.positionExclusions().entrySet()) {
+            int pos = entry.getKey() - 1;
+            if (pos < 0 || pos >= wordLength) {
+                continue;
+            }
+            for (char c : entry.getValue()) {
+                int letter = Alphabet.indexOf(c);
+                if (letter >= 0) {
+                    andNot(result, positionLetters[pos][letter]);
+                }
+            }
+        }
+
+        //finally remove every word containing a letter that is no longer available
+        long availableMask = Alphabet.mask(restrictions.word().word());
+        for (int letter = 0; letter < Alphabet.SIZE; letter++) {
+            if ((availableMask & (1L << letter)) == 0 && letterCounts[letter] != null) {
+                andNot(result, letterCounts[letter][0]);
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return words.length + unindexedWords.size();
+    }
+
+    private long[] atLeast(char c, int count) {
+        if (count < 1) {
+            return allWords;
+        }
+        int letter = Alphabet.indexOf(c);
+        if (letter < 0 || letterCounts[letter] == null || letterCounts[letter].length < count) {
+            return null;
+        }
+        return letterCounts[letter][count - 1];
+    }
+
+    /**
+     * Intersects the result with the given bitset, where null means no words.
+     * @return false if the result is now empty because of a missing bitset
+     */
+    private static boolean and(long[] result, long[] bits) {
+        if (bits == null) {
+            Arrays.fill(result, 0);
+            return false;
+        }
+        for (int i = 0; i < result.length; i++) {
+            result[i] &= bits[i];
+        }
+        return true;
+    }
+
+    private static void andNot(long[] result, long[] bits) {
+        if (bits == null) {
+            return;
+        }
+        for (int i = 0; i < result.length; i++) {
+            result[i] &= ~bits[i];
+        }
+    }
+}
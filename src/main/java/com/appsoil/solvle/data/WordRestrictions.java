@@ -5,6 +5,7 @@ import lombok.extern.log4j.Log4j2;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 
 @Log4j2
@@ -22,7 +23,7 @@ public record WordRestrictions(Word word,
 
     private static int MAX_WORD_LENGTH = 9;
 
-    public static final WordRestrictions NO_RESTRICTIONS = new WordRestrictions("aáäbcdðeéfghiíjklmnñoópqrsßtuúüvwxyýzþæö");
+    public static final WordRestrictions NO_RESTRICTIONS = new WordRestrictions("aáäbcdðeéfghiíjklmnñoópqrsßtuúüvwxyýzþæö").canonical();
 
     /**
      * Creates a description of known restriction knowledge based on provided input string.
@@ -90,6 +91,53 @@ public record WordRestrictions(Word word,
         return new WordRestrictions(word, newRequiredLetters, letterPositions, positionExclusions, minimumLetterFrequencies);
     }
 
+    /**
+     * Returns equivalent restrictions in a normal form, so that any two restrictions that describe the same state
+     * are equal no matter how they were written or generated. Useful as a cache or grouping key.
+     *  - available letters are de-duplicated and sorted
+     *  - letters with known positions or minimum frequencies are added to the required letters
+     *  - exclusions are dropped where they are already implied by a known letter in that position or by the
+     *    letter being unavailable, and empty exclusion sets are removed
+     *  - minimum frequencies are dropped if they are already implied by the letter being required or by the
+     *    number of positions it is known to occupy
+     */
+    public WordRestrictions canonical() {
+        String available = word.word().chars().distinct().sorted()
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString();
+
+        Map<Integer, Character> newLetterPositions = new TreeMap<>(letterPositions);
+
+        Set<Character> newRequiredLetters = new TreeSet<>(requiredLetters);
+        newRequiredLetters.addAll(letterPositions.values());
+        minimumLetterFrequencies.forEach((c, freq) -> {
+            if (freq > 0) {
+                newRequiredLetters.add(c);
+            }
+        });
+
+        Map<Integer, Set<Character>> newPositionExclusions = new TreeMap<>();
+        positionExclusions.forEach((pos, cs) -> {
+            Character known = letterPositions.get(pos);
+            Set<Character> newCs = cs.stream()
+                    .filter(c -> known == null || known.equals(c)) //excluding the known letter is a contradiction, so keep it
+                    .filter(c -> available.indexOf(c) >= 0)
+                    .collect(Collectors.toCollection(TreeSet::new));
+            if (!newCs.isEmpty()) {
+                newPositionExclusions.put(pos, newCs);
+            }
+        });
+
+        Map<Character, Integer> newMinimumLetterFrequencies = new TreeMap<>();
+        minimumLetterFrequencies.forEach((c, freq) -> {
+            long knownPositions = letterPositions.values().stream().filter(c::equals).count();
+            if (freq > Math.max(1, knownPositions)) {
+                newMinimumLetterFrequencies.put(c, freq);
+            }
+        });
+
+        return new WordRestrictions(new Word(available), newRequiredLetters, newLetterPositions, newPositionExclusions, newMinimumLetterFrequencies);
+    }
+
     public static WordRestrictions noRestrictions() {
         return NO_RESTRICTIONS;
     }
@@ -112,9 +160,10 @@ public record WordRestrictions(Word word,
             char c = guess.word().charAt(i);
 
             //if solution contains this letter, add it to required, otherwise remove it from the available chars
-            if(solution.letters().containsKey(c)) {
+            int solutionCount = solution.count(c);
+            if(solutionCount > 0) {
                 newRequiredLetters.add(c);
-                newMinimumLetterFrequencies.put(c, Math.min(solution.letters().get(c), guess.letters().get(c)));
+                newMinimumLetterFrequencies.put(c, Math.min(solutionCount, guess.count(c)));
             } else {
                 restrictionWord = restrictionWord.replace("" + c, "");
                 continue;
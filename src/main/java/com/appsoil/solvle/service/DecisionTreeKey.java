@@ -0,0 +1,18 @@
+package com.appsoil.solvle.service;
+
+import com.appsoil.solvle.config.DictionaryType;
+
+/**
+ * Identifies a {@link com.appsoil.solvle.data.DecisionTree}. The solver makes the same guesses for the same
+ * dictionary and settings, so each combination only needs to be built once.
+ */
+public record DecisionTreeKey(DictionaryType dictionary, WordConfig wordConfig, boolean hardMode, boolean requireAnswer) {
+
+    public WordCalculationConfig config() {
+        return wordConfig.config.withHardMode(hardMode).withRequireAnswer(requireAnswer);
+    }
+
+    public String fileName() {
+        return dictionary + "-" + wordConfig + (hardMode ? "-hard" : "") + (requireAnswer ? "-answer" : "") + ".tree";
+    }
+}
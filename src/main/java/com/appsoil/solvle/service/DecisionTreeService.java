@@ -0,0 +1,92 @@
+package com.appsoil.solvle.service;
+
+import com.appsoil.solvle.config.DecisionTreeProperties;
+import com.appsoil.solvle.data.DecisionTree;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Prepares the configured decision trees, loading them from disk when a saved tree still matches the dictionary
+ * and configuration, and otherwise building and saving them.
+ */
+@Service
+@Log4j2
+@EnableConfigurationProperties(DecisionTreeProperties.class)
+public class DecisionTreeService {
+
+    private final SolvleService solvleService;
+    private final DecisionTreeProperties properties;
+
+    public DecisionTreeService(SolvleService solvleService, DecisionTreeProperties properties) {
+        this.solvleService = solvleService;
+        this.properties = properties;
+    }
+
+    public void preloadDecisionTrees() {
+        properties.preload().forEach(key -> {
+            try {
+                loadOrBuild(key);
+            } catch (RuntimeException e) {
+                log.error("Unable to prepare decision tree for {}", key, e);
+            }
+        });
+    }
+
+    public DecisionTree loadOrBuild(DecisionTreeKey key) {
+        DecisionTree tree = load(key);
+        if (tree != null) {
+            return tree;
+        }
+        tree = solvleService.buildDecisionTree(key);
+        save(key, tree);
+        return tree;
+    }
+
+    private DecisionTree load(DecisionTreeKey key) {
+        if (properties.directory() == null) {
+            return null;
+        }
+        Path file = properties.directory().resolve(key.fileName());
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            DecisionTree tree = DecisionTree.read(in);
+            solvleService.addDecisionTree(key, tree);
+            log.info("Loaded decision tree for {} ({} nodes) from {}", key, tree.size(), file);
+            return tree;
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Discarding decision tree {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private void save(DecisionTreeKey key, DecisionTree tree) {
+        if (properties.directory() == null) {
+            return;
+        }
+        Path file = properties.directory().resolve(key.fileName());
+        try {
+            Files.createDirectories(properties.directory());
+            //write to a temporary file first so a partial tree is never left behind
+            Path temp = Files.createTempFile(properties.directory(), key.fileName(), ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                tree.write(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved decision tree for {} to {}", key, file);
+        } catch (IOException e) {
+            log.warn("Unable to save decision tree for {} to {}", key, file, e);
+        }
+    }
+}
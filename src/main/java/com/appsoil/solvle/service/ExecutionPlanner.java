@@ -0,0 +1,149 @@
+package com.appsoil.solvle.service;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.BaseStream;
+
+/**
+ * Chooses how each phase of an analysis runs, based on a rough estimate of its work and the cores available. Splitting
+ * a stream across the fork-join pool costs tens of microseconds, which is more than filtering a few hundred words or
+ * partitioning three solutions takes, so small phases run sequentially. Phases that are started from a fork-join
+ * worker while the pool already has queued work (solving a whole dictionary or playing out guesses in parallel) also
+ * run sequentially, since the outer level is already keeping every core busy.
+ *
+ * Every plan is logged at debug level along with how long it took, and totals for each phase and mode are kept for
+ * {@link #summary()}.
+ */
+@Log4j2
+public class ExecutionPlanner {
+
+    /**
+     * Estimated operations below which a phase is not worth splitting
+     */
+    static final long PARALLEL_WORK = 100_000;
+
+    //queued tasks of the current worker above which the pool is considered busy
+    private static final int BUSY_SURPLUS = 2;
+
+    private static final ExecutionPlanner COMMON = new ExecutionPlanner(
+            Math.min(Runtime.getRuntime().availableProcessors(), ForkJoinPool.getCommonPoolParallelism() + 1));
+
+    public enum Phase {
+        FILTER, COUNT, SCORE, PARTITION, PLAYOUT
+    }
+
+    /**
+     * @param items    Number of elements the phase iterates over
+     * @param work     Estimated number of basic operations for the whole phase
+     * @param parallel Whether to split the phase across the fork-join pool
+     * @param indexed  Whether the phase uses precomputed lookups (feedback matrix, score tables) instead of
+     *                 computing each value
+     */
+    public record Plan(Phase phase, int items, long work, boolean parallel, boolean indexed) {
+
+        /**
+         * @return the stream, parallel or sequential as planned
+         */
+        public <T, S extends BaseStream<T, S>> S apply(S stream) {
+            return parallel ? stream.parallel() : stream.sequential();
+        }
+    }
+
+    /**
+     * Totals for every run of one phase in one mode.
+     */
+    public record PhaseStats(Phase phase, boolean parallel, long runs, long items, long nanos) {
+        public double meanMicros() {
+            return runs == 0 ? 0 : nanos / 1000.0 / runs;
+        }
+    }
+
+    private final int workers;
+    private final LongAdder[][] runs = new LongAdder[Phase.values().length][2];
+    private final LongAdder[][] items = new LongAdder[Phase.values().length][2];
+    private final LongAdder[][] nanos = new LongAdder[Phase.values().length][2];
+
+    /**
+     * @param workers Number of threads that can work on a phase at once
+     */
+    public ExecutionPlanner(int workers) {
+        this.workers = workers;
+        for (int phase = 0; phase < runs.length; phase++) {
+            for (int mode = 0; mode < 2; mode++) {
+                runs[phase][mode] = new LongAdder();
+                items[phase][mode] = new LongAdder();
+                nanos[phase][mode] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * @return the planner for the common fork-join pool, shared by every {@link WordCalculationService}
+     */
+    public static ExecutionPlanner common() {
+        return COMMON;
+    }
+
+    public int workers() {
+        return workers;
+    }
+
+    public Plan plan(Phase phase, int items, long work, boolean indexed) {
+        boolean parallel = workers > 1 && items > 1 && work >= PARALLEL_WORK && !isPoolBusy();
+        return new Plan(phase, items, work, parallel, indexed);
+    }
+
+    /**
+     * Records how long a planned phase took.
+     * @param startNanos {@link System#nanoTime()} from before the phase started
+     */
+    public void finished(Plan plan, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        int phase = plan.phase().ordinal();
+        int mode = plan.parallel() ? 1 : 0;
+        runs[phase][mode].increment();
+        items[phase][mode].add(plan.items());
+        nanos[phase][mode].add(elapsed);
+        log.debug("{} of {} items ({} ops, {}) ran {} in {}us", plan.phase(), plan.items(), plan.work(),
+                plan.indexed() ? "indexed" : "computed", plan.parallel() ? "parallel" : "sequential", elapsed / 1000);
+    }
+
+    /**
+     * @return totals for each phase and mode that has run at least once
+     */
+    public List<PhaseStats> stats() {
+        List<PhaseStats> stats = new ArrayList<>();
+        for (Phase phase : Phase.values()) {
+            for (int mode = 0; mode < 2; mode++) {
+                long count = runs[phase.ordinal()][mode].sum();
+                if (count > 0) {
+                    stats.add(new PhaseStats(phase, mode == 1, count, items[phase.ordinal()][mode].sum(), nanos[phase.ordinal()][mode].sum()));
+                }
+            }
+        }
+        return stats;
+    }
+
+    public String summary() {
+        StringBuilder summary = new StringBuilder("Execution plans with " + workers + " workers:");
+        for (PhaseStats stats : stats()) {
+            summary.append(String.format(" %s %s x%d (%.0f items, %.1fus avg);", stats.phase(), stats.parallel() ? "parallel" : "sequential",
+                    stats.runs(), (double) stats.items() / stats.runs(), stats.meanMicros()));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * A phase started by a fork-join worker while the pool has more queued tasks than workers would only compete with
+     * them.
+     */
+    private boolean isPoolBusy() {
+        return ForkJoinTask.inForkJoinPool()
+                && (ForkJoinTask.getSurplusQueuedTaskCount() > BUSY_SURPLUS || ForkJoinTask.getPool().getQueuedTaskCount() > workers);
+    }
+}
@@ -0,0 +1,90 @@
+package com.appsoil.solvle.service;
+
+import com.appsoil.solvle.config.DictionaryProperties;
+import com.appsoil.solvle.config.DictionaryType;
+import com.appsoil.solvle.data.PartitionDataSnapshot;
+import com.appsoil.solvle.data.PartitionStats;
+import com.appsoil.solvle.data.Word;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+/**
+ * Prepares the first guess partition data for a dictionary, loading it from disk when the saved data still matches
+ * the dictionary and configuration, and otherwise computing and saving it.
+ */
+@Service
+@Log4j2
+public class PartitionDataService {
+
+    private final SolvleService solvleService;
+    private final DictionaryProperties properties;
+
+    public PartitionDataService(SolvleService solvleService, DictionaryProperties properties) {
+        this.solvleService = solvleService;
+        this.properties = properties;
+    }
+
+    public void loadOrBuild(DictionaryType wordList) {
+        if (load(wordList)) {
+            return;
+        }
+        solvleService.preloadPartitionData(wordList);
+        save(wordList, solvleService.getFirstPartitionData(wordList));
+    }
+
+    private boolean load(DictionaryType wordList) {
+        if (properties.partitionDataDirectory() == null) {
+            return false;
+        }
+        Path file = properties.partitionDataDirectory().resolve(fileName(wordList));
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file))) {
+            Map<Word, PartitionStats> partitionData = PartitionDataSnapshot.read(in, solvleService.getPartitionDataFingerprint(wordList));
+            if (partitionData == null) {
+                log.info("Partition data {} is out of date", file);
+                return false;
+            }
+            solvleService.addFirstPartitionData(wordList, partitionData);
+            log.info("Loaded partition data for {} ({} words) from {}", wordList, partitionData.size(), file);
+            return true;
+        } catch (IOException e) {
+            log.warn("Discarding partition data {}: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    private void save(DictionaryType wordList, Map<Word, PartitionStats> partitionData) {
+        if (properties.partitionDataDirectory() == null) {
+            return;
+        }
+        Path file = properties.partitionDataDirectory().resolve(fileName(wordList));
+        try {
+            Files.createDirectories(properties.partitionDataDirectory());
+            //write to a temporary file first so partial data is never left behind
+            Path temp = Files.createTempFile(properties.partitionDataDirectory(), fileName(wordList), ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                PartitionDataSnapshot.write(partitionData, solvleService.getPartitionDataFingerprint(wordList), out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Saved partition data for {} to {}", wordList, file);
+        } catch (IOException e) {
+            log.warn("Unable to save partition data for {} to {}", wordList, file, e);
+        }
+    }
+
+    private static String fileName(DictionaryType wordList) {
+        return wordList.name() + ".partitions";
+    }
+}
@@ -0,0 +1,186 @@
+package com.appsoil.solvle.service;
+
+import com.appsoil.solvle.config.CacheConfig;
+import com.appsoil.solvle.config.DictionaryType;
+import com.appsoil.solvle.config.PrefetchProperties;
+import com.appsoil.solvle.config.SingleFlightCaffeineCache;
+import com.appsoil.solvle.controller.PrefetchStatsDTO;
+import com.appsoil.solvle.controller.SolvleDTO;
+import com.appsoil.solvle.data.Word;
+import com.appsoil.solvle.data.WordFrequencyScore;
+import com.appsoil.solvle.data.WordRestrictions;
+import com.appsoil.solvle.service.solvers.RemainingSolver;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Analyzes the states a player is most likely to ask for next, so their next request is a cache hit. After an
+ * analysis is returned, the solver's top recommendation is split by the feedback it could get, and the states for the
+ * largest groups of solutions are analyzed in the background and put in the validWords cache.
+ *
+ * Prefetches run on a small fork-join pool of low priority threads. Parallel streams inside each analysis run on
+ * the same pool, so speculative work never takes common pool workers from real requests. Prefetches beyond the queue
+ * size are dropped. A prefetched state counts as a hit if it is requested before it expires, and as wasted work if not.
+ */
+@Service
+@Log4j2
+@EnableConfigurationProperties(PrefetchProperties.class)
+public class PrefetchService {
+
+    //prefetched states remembered at once while waiting to be requested
+    private static final long MAX_UNREQUESTED = 10_000;
+
+    private final SolvleService solvleService;
+    private final Cache cache;
+    private final PrefetchProperties properties;
+    private final ForkJoinPool pool;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    //prefetches still running, with whether their state has been requested in the meantime
+    private final ConcurrentMap<Object, AtomicBoolean> inFlight = new ConcurrentHashMap<>();
+    //finished prefetches that have not been requested yet, with the nanoseconds spent on them
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Long> unrequested;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder alreadyCached = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder wasted = new LongAdder();
+    private final LongAdder computeNanos = new LongAdder();
+    private final LongAdder wastedNanos = new LongAdder();
+
+    public PrefetchService(SolvleService solvleService, CacheManager cacheManager, PrefetchProperties properties) {
+        this.solvleService = solvleService;
+        this.cache = cacheManager.getCache("validWords");
+        this.properties = properties;
+        this.pool = new ForkJoinPool(properties.threads(), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("prefetch-" + thread.getPoolIndex());
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }, null, false);
+        this.unrequested = Caffeine.newBuilder()
+                .maximumSize(MAX_UNREQUESTED)
+                .expireAfterWrite(properties.expireAfter())
+                //count evictions on the thread that causes them, so getStats() sees them right after cleanUp()
+                .executor(Runnable::run)
+                .<Object, Long>removalListener((key, nanos, cause) -> {
+                    if (cause.wasEvicted() && nanos != null) {
+                        wasted.increment();
+                        wastedNanos.add(nanos);
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Queues analyses for the likeliest states after the top recommendation in this analysis. Takes the same
+     * parameters as the cached {@link SolvleService#getWordAnalysis(String, DictionaryType, WordConfig, boolean, boolean)}.
+     */
+    public void prefetchNextStates(String restrictionString, DictionaryType wordList, WordConfig wordConfig, boolean hardMode, boolean requireAnswer,
+                                   SolvleDTO analysis) {
+        if (!properties.enabled() || cache == null || analysis.totalWords() <= 1) {
+            return;
+        }
+        if (queued.incrementAndGet() > properties.queueSize()) {
+            queued.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        submitted.increment();
+        pool.execute(() -> {
+            try {
+                WordCalculationConfig config = wordConfig.config.withHardMode(hardMode).withRequireAnswer(requireAnswer);
+                WordFrequencyScore guess = RemainingSolver.getNextGuess(config, analysis, List.of());
+                if (guess == null) {
+                    return;
+                }
+                WordRestrictions restrictions = new WordRestrictions(restrictionString.toLowerCase());
+                for (WordRestrictions next : solvleService.getLikelyNextRestrictions(restrictions, wordList, config,
+                        new Word(guess.word(), guess.naturalOrdering()), properties.outcomes())) {
+                    prefetch(next, wordList, wordConfig, hardMode, requireAnswer);
+                }
+            } catch (RuntimeException e) {
+                failed.increment();
+                log.warn("Prefetch after {} failed", restrictionString, e);
+            } finally {
+                queued.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Records a request for an analysis, counting a hit if the state was prefetched.
+     */
+    public void recordRequest(String restrictionString, DictionaryType wordList, WordConfig wordConfig, boolean hardMode, boolean requireAnswer) {
+        Object key = CacheConfig.restrictionsKey(restrictionString, wordList, wordConfig, hardMode, requireAnswer);
+        if (unrequested.asMap().remove(key) != null) {
+            hits.increment();
+            return;
+        }
+        AtomicBoolean requested = inFlight.get(key);
+        if (requested != null && requested.compareAndSet(false, true)) {
+            hits.increment();
+        }
+    }
+
+    public PrefetchStatsDTO getStats() {
+        //expired entries are otherwise only evicted during later writes, leaving them out of the wasted count
+        unrequested.cleanUp();
+        long hitCount = hits.sum();
+        long wastedCount = wasted.sum();
+        return new PrefetchStatsDTO(submitted.sum(), dropped.sum(), alreadyCached.sum(), completed.sum(), failed.sum(), hitCount, wastedCount,
+                unrequested.estimatedSize(), hitCount + wastedCount == 0 ? 0 : (double) hitCount / (hitCount + wastedCount),
+                computeNanos.sum() / 1_000_000, wastedNanos.sum() / 1_000_000);
+    }
+
+    /**
+     * Checks for an entry without a cache lookup where possible, so that deciding what to prefetch isn't counted as a
+     * hit or miss in the validWords stats
+     */
+    private boolean isCached(Object key) {
+        return cache instanceof SingleFlightCaffeineCache singleFlightCache ? singleFlightCache.containsKey(key) : cache.get(key) != null;
+    }
+
+    private void prefetch(WordRestrictions restrictions, DictionaryType wordList, WordConfig wordConfig, boolean hardMode, boolean requireAnswer) {
+        Object key = CacheConfig.restrictionsKey(restrictions.canonical(), wordList, wordConfig, hardMode, requireAnswer);
+        if (isCached(key) || unrequested.getIfPresent(key) != null) {
+            alreadyCached.increment();
+            return;
+        }
+        AtomicBoolean requested = new AtomicBoolean();
+        if (inFlight.putIfAbsent(key, requested) != null) {
+            alreadyCached.increment();
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            //a request for the same state while this runs waits for this analysis instead of starting its own
+            cache.get(key, () -> solvleService.getWordAnalysis(restrictions, wordList, wordConfig, hardMode, requireAnswer));
+            long elapsed = System.nanoTime() - start;
+            completed.increment();
+            computeNanos.add(elapsed);
+            if (!requested.get()) {
+                unrequested.put(key, elapsed);
+            }
+            log.debug("Prefetched {} in {}ms", restrictions, elapsed / 1_000_000);
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+}
@@ -1,29 +1,119 @@
 package com.appsoil.solvle.service;
 
+import com.appsoil.solvle.config.DictionaryProperties;
+import com.appsoil.solvle.config.DictionaryType;
+import com.appsoil.solvle.data.Dictionary;
 import lombok.extern.log4j.Log4j2;
-import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
 import org.springframework.context.annotation.Profile;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Startup pipeline that warms the expensive structures before traffic arrives. The configured dictionaries are read
+ * in parallel, and each prepared dictionary builds its word index, feedback matrix and first guess partition data
+ * alongside each other. Decision trees are prepared last since they use all of the above.
+ *
+ * Phases that need something still being built by another phase simply wait for it, since dictionaries and
+ * feedback matrices are only built once. Saved partition data is loaded without waiting for the feedback matrix.
+ */
 @Service
 @Profile("!test")
 @Log4j2
 public class PreloadService {
 
-    private SolvleService solvleService;
+    private final SolvleService solvleService;
+    private final DecisionTreeService decisionTreeService;
+    private final PartitionDataService partitionDataService;
+    private final Map<DictionaryType, Dictionary> dictionaries;
+    private final DictionaryProperties dictionaryProperties;
+
+    private final Map<String, Duration> phaseTimings = new ConcurrentHashMap<>();
+    private CompletableFuture<Void> pipeline;
 
-    public PreloadService(SolvleService solvleService) {
+    public PreloadService(SolvleService solvleService, DecisionTreeService decisionTreeService, PartitionDataService partitionDataService,
+                          Map<DictionaryType, Dictionary> dictionaries, DictionaryProperties dictionaryProperties) {
         this.solvleService = solvleService;
+        this.decisionTreeService = decisionTreeService;
+        this.partitionDataService = partitionDataService;
+        this.dictionaries = dictionaries;
+        this.dictionaryProperties = dictionaryProperties;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onApplicationStarted() {
+        start();
+    }
+
+    /**
+     * Starts the pipeline if it is not already running.
+     * @return completes once every phase has finished, whether or not they succeeded
+     */
+    public synchronized CompletableFuture<Void> start() {
+        if (pipeline != null) {
+            return pipeline;
+        }
+        LocalDateTime start = LocalDateTime.now();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+        List<CompletableFuture<Void>> phases = new ArrayList<>();
+        for (DictionaryType type : dictionaryProperties.preload()) {
+            phases.add(phase("Dictionary " + type, () -> dictionaries.get(type), executor));
+        }
+        for (DictionaryType type : dictionaryProperties.prepare()) {
+            phases.add(phase("Word index " + type, () -> solvleService.getWordIndex(type), executor));
+            phases.add(phase("Feedback matrix " + type, () -> solvleService.getFeedbackMatrix(type), executor));
+            phases.add(phase("Partition data " + type, () -> partitionDataService.loadOrBuild(type), executor));
+        }
+
+        pipeline = CompletableFuture.allOf(phases.toArray(CompletableFuture[]::new))
+                .thenCompose(v -> phase("Decision trees", decisionTreeService::preloadDecisionTrees, executor))
+                .whenComplete((v, e) -> {
+                    executor.shutdown();
+                    Duration total = Duration.between(start, LocalDateTime.now());
+                    phaseTimings.put("Total", total);
+                    log.info("Preload finished in {}", total);
+                });
+        return pipeline;
+    }
+
+    /**
+     * @return true once the pipeline has finished, so requests no longer hit cold structures
+     */
+    public synchronized boolean isReady() {
+        return pipeline != null && pipeline.isDone();
+    }
+
+    /**
+     * @return how long each finished phase took, by phase name
+     */
+    public Map<String, Duration> getPhaseTimings() {
+        return new TreeMap<>(phaseTimings);
     }
 
-    @EventListener(ApplicationReadyEvent.class)
-    public void onApplicationReady() {
-//        solvleService.preloadPartitionData().thenAccept(result -> {
-//            log.info("Preload Finished");
-//        }).exceptionally(ex -> {
-//            log.error("Preload failed", ex);
-//            return null;
-//        });
+    private CompletableFuture<Void> phase(String name, Runnable task, Executor executor) {
+        return CompletableFuture.runAsync(() -> {
+            LocalDateTime start = LocalDateTime.now();
+            task.run();
+            Duration duration = Duration.between(start, LocalDateTime.now());
+            phaseTimings.put(name, duration);
+            log.info("Preload {} took {}", name, duration);
+        }, executor).exceptionally(e -> {
+            //a failed phase only leaves its structure to be built on first use, so keep going
+            log.error("Preload {} failed", name, e);
+            return null;
+        });
     }
 }
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -15,19 +16,21 @@ import java.util.stream.IntStream;
 @Service
 public class SolvescapeService {
 
-    private final Dictionary bigDictionary;
+    private final Map<DictionaryType, Dictionary> allDictionaries;
 
     public SolvescapeService(Map<DictionaryType, Dictionary> allDictionaries) {
-        this.bigDictionary = allDictionaries.get(DictionaryType.BIG);
+        // dictionaries may be loaded on first use, so look the big dictionary up per request
+        this.allDictionaries = allDictionaries;
     }
 
     public Map<Integer, List<String>> getAnagrams(String availableLetters) {
         Word available = new Word(availableLetters);
+        Dictionary bigDictionary = allDictionaries.get(DictionaryType.BIG);
 
         Map<Integer, List<String>> options = new ConcurrentSkipListMap<>((i, j) -> Integer.compare(j, i));
 
         IntStream.rangeClosed(3, availableLetters.length()).parallel().forEach(i -> options.put(i,
-                bigDictionary.wordsBySize().get(i).stream()
+                bigDictionary.wordsBySize().getOrDefault(i, Set.of()).stream()
                         .filter(w -> contains(available, w))
                         .map(Word::word)
                         .sorted().collect(Collectors.toList())));
@@ -36,6 +39,19 @@ public class SolvescapeService {
     }
 
     public boolean contains(Word available, Word other){
+        if(available.hasPackedLetters() && other.hasPackedLetters()) {
+            long otherMask = other.letterMask();
+            if((otherMask & ~available.letterMask()) != 0) {
+                return false;
+            }
+            for(long remaining = otherMask; remaining != 0; remaining &= remaining - 1) {
+                int index = Long.numberOfTrailingZeros(remaining);
+                if(available.countIndex(index) < other.countIndex(index)) {
+                    return false;
+                }
+            }
+            return true;
+        }
         Map<Character, Integer> otherLetters = other.letters();
         Map<Character, Integer> availableLetters = available.letters();
         for(Character c : otherLetters.keySet()){
@@ -1,5 +1,6 @@
 package com.appsoil.solvle.service;
 
+import com.appsoil.solvle.config.CacheConfig;
 import com.appsoil.solvle.config.DictionaryType;
 import com.appsoil.solvle.controller.GameScoreDTO;
 import com.appsoil.solvle.controller.KnownPositionDTO;
@@ -11,21 +12,24 @@ import com.appsoil.solvle.service.job.JobStatus;
 import com.appsoil.solvle.service.job.SolveJob;
 import com.appsoil.solvle.service.solvers.RemainingSolver;
 import com.appsoil.solvle.service.solvers.Solver;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.interceptor.SimpleKey;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.*;
-import java.util.stream.Collector;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 @Service
@@ -41,6 +45,34 @@ public class SolvleService {
     private final int MAX_JOB_IGNORE_TIME_SECONDS = 60;
 
     private Map<DictionaryType, Map<Word, PartitionStats>> firstPartitionData = new ConcurrentHashMap<>();
+    //opening partition stats don't depend on the scoring weights, only on hard mode, which is not cached
+    private static final WordCalculationConfig PARTITION_DATA_CONFIG = WordCalculationConfig.SIMPLE;
+    private final Map<DictionaryType, FeedbackMatrix> feedbackMatrices = new ConcurrentHashMap<>();
+    private final Map<DictionaryType, WordIndex> wordIndexes = new ConcurrentHashMap<>();
+    //primary and fishing sets are matched by identity, since solvers only pass the word set along; copied on write
+    private volatile Map<Set<Word>, DictionaryType> wordSetTypes = new IdentityHashMap<>();
+    //dictionaries that have been used as a primary set
+    private final Set<DictionaryType> warmedDictionaries = ConcurrentHashMap.newKeySet();
+    //only guesses are kept for each node; analyses of on-tree states go through the bounded validWords cache like any other
+    private final Map<DecisionTreeKey, DecisionTree> decisionTrees = new ConcurrentHashMap<>();
+    private final Map<DecisionTreeKey, DecisionTreeStates> decisionTreeStates = new ConcurrentHashMap<>();
+    //configurations can come from request parameters, so only the most used services are kept
+    private static final long MAX_CALCULATION_SERVICES = 256;
+    private final Cache<CalculationServiceKey, WordCalculationService> calculationServices = Caffeine.newBuilder()
+            .maximumSize(MAX_CALCULATION_SERVICES)
+            .build();
+
+    private record CalculationServiceKey(WordCalculationConfig config, FeedbackMatrix feedbackMatrix) {}
+
+    /**
+     * The state reached at every node of a decision tree, one per node, for matching requests to the tree
+     * @param letters Every letter used by the dictionary's words
+     */
+    private record DecisionTreeStates(Set<Character> letters, Set<WordRestrictions> states) {
+        boolean contains(WordRestrictions restrictions) {
+            return states.contains(treeState(restrictions, letters));
+        }
+    }
 
     public SolvleService(Map<DictionaryType, Dictionary> dictionaries) {
         this.dictionaries = dictionaries;
@@ -52,7 +84,7 @@ public class SolvleService {
     }
 
 
-    @Cacheable("validWords")
+    @Cacheable(value = "validWords", keyGenerator = CacheConfig.RESTRICTIONS_KEY_GENERATOR, sync = true)
     public SolvleDTO getWordAnalysis(String restrictionString, DictionaryType wordList, WordConfig wordConfig, boolean hardMode, boolean requireAnswer) {
 
         log.debug("Searching for words using {}", wordConfig);
@@ -66,6 +98,25 @@ public class SolvleService {
         return result;
     }
 
+    /**
+     * Same as {@link #getWordAnalysis(String, DictionaryType, WordConfig, boolean, boolean)}, but only ranks best words
+     * for as long as the budget allows, however many viable words there are. Results are not cached since they may be
+     * incomplete.
+     *
+     * @param partitionBudget How long to spend ranking best words
+     */
+    public SolvleDTO getWordAnalysis(String restrictionString, DictionaryType wordList, WordConfig wordConfig, boolean hardMode, boolean requireAnswer,
+                                     Duration partitionBudget) {
+        WordRestrictions wordRestrictions = new WordRestrictions(restrictionString.toLowerCase());
+        Instant partitionDeadline = Instant.now().plus(partitionBudget);
+
+        SolvleDTO analysis = getWordAnalysis(wordRestrictions, getPrimarySet(wordList), getFishingSet(wordList),
+                wordConfig.config.withHardMode(hardMode).withRequireAnswer(requireAnswer), partitionDeadline);
+        log.info("Found {} matches for {} with {} best words{}", analysis.totalWords(), restrictionString,
+                analysis.bestWords() == null ? 0 : analysis.bestWords().size(), analysis.bestWordsComplete() ? "" : " (partial)");
+        return analysis;
+    }
+
     public SolvleDTO getWordAnalysis(WordRestrictions wordRestrictions, DictionaryType wordList, WordConfig wordConfig, boolean hardMode, boolean requireAnswer) {
         Set<Word> wordSet = getPrimarySet(wordList);
         Set<Word> fishingSet = getFishingSet(wordList);
@@ -79,18 +130,27 @@ public class SolvleService {
     }
 
     public SolvleDTO getWordAnalysis(WordRestrictions wordRestrictions, Set<Word> wordSet, Set<Word> fishingSet, WordCalculationConfig wordCalculationConfig) {
+        return getWordAnalysis(wordRestrictions, wordSet, fishingSet, wordCalculationConfig, null);
+    }
+
+    /**
+     * @param partitionDeadline If not null, best words are ranked until this time no matter how many viable words there
+     *                          are, instead of only when there are fewer than the partition threshold
+     */
+    public SolvleDTO getWordAnalysis(WordRestrictions wordRestrictions, Set<Word> wordSet, Set<Word> fishingSet, WordCalculationConfig wordCalculationConfig,
+                                     Instant partitionDeadline) {
 
         if(wordCalculationConfig.requireAnswer()) {
             fishingSet = wordSet;
         }
 
-        WordCalculationService wordCalculationService = new WordCalculationService(wordCalculationConfig);
+        WordCalculationService wordCalculationService = getCalculationService(wordCalculationConfig, getFeedbackMatrix(wordSet));
 
         // find all the valid words in our dictionary for this restriction string
-        Set<Word> containedWords = wordCalculationService.findMatchingWords(wordSet, wordRestrictions);
+        Set<Word> containedWords = findMatchingWords(wordCalculationService, wordSet, wordRestrictions);
         if (wordCalculationConfig.hardMode()) {
             //for hard mode, we also have to filter the fishing word list the same way
-            fishingSet = wordCalculationService.findMatchingWords(fishingSet, wordRestrictions);
+            fishingSet = findMatchingWords(wordCalculationService, fishingSet, wordRestrictions);
         }
 
         // check for common positions within contained words
@@ -109,7 +169,8 @@ public class SolvleService {
         Set<WordFrequencyScore> wordFrequencyScores; // scores for possible solution words
         Set<WordFrequencyScore> fishingWordScores;   // scores for non-solution words
         Set<WordFrequencyScore> remainingWords;      // words that reduce the solution set the most
-        Map<Character, LongAdder> characterCounts;   // number of words with each character
+        boolean remainingWordsComplete;              // whether every candidate was ranked for remainingWords
+        CharacterCounts characterCounts;             // number of words with each character
 
         // calculate how many words in the valid word set contain each character and
         //   then generate scores for words in the valid list and fishing list
@@ -121,21 +182,29 @@ public class SolvleService {
             fishingWordScores = containedWords.isEmpty() ? new HashSet<>() : wordCalculationService
                     .calculateFishingWords(fishingSet, characterCounts, containedWords.size(), FISHING_WORD_SIZE, wordRestrictions.requiredLetters(), sharedPositionBonus);
         } else {
-            Map<Integer, Map<Character, LongAdder>> positionalCharCounts = wordCalculationService.calculateCharacterCountsByPosition(containedWords);
+            CharacterCounts positionalCharCounts = wordCalculationService.calculateCharacterCountsByPosition(containedWords);
             wordFrequencyScores = wordCalculationService
                     .calculateViableWordsByPosition(containedWords, positionalCharCounts, containedWords, 0, MAX_RESULT_LIST_SIZE, wordRestrictions, sharedPositionBonus);
             fishingWordScores = containedWords.isEmpty() ? new HashSet<>() : wordCalculationService
                     .calculateFishingWordsByPosition(fishingSet, positionalCharCounts, containedWords, FISHING_WORD_SIZE, wordRestrictions, sharedPositionBonus);
 
-            //merge positional char counts for use in the DTO
-            characterCounts = mergeCharacterCounts(positionalCharCounts);
+            // this returns slightly higher values than the original 'words with characters' map, because words with
+            // duplicate chars are counted once per position. The information about words with duplicates is lost
+            // at this point and not worth recalculating.
+            characterCounts = positionalCharCounts;
         }
 
         // generate words that optimally partition the viable set
         if (wordCalculationConfig.partitionThreshold() <= 0) {
             remainingWords = null;
+            remainingWordsComplete = true;
+        } else if (partitionDeadline != null) {
+            PartitionRanking ranking = wordCalculationService.calculateRemainingWords(wordRestrictions, containedWords, wordFrequencyScores, fishingWordScores, partitionDeadline);
+            remainingWords = ranking.words();
+            remainingWordsComplete = ranking.complete();
         } else {
             remainingWords = wordCalculationService.calculateRemainingWords(wordRestrictions, containedWords, wordFrequencyScores, fishingWordScores);
+            remainingWordsComplete = containedWords.size() <= wordCalculationConfig.partitionThreshold();
 
             //if partitioning enabled, also calculate recommendations for ruts
 //            if(sharedPositions != null) {
@@ -151,12 +220,12 @@ public class SolvleService {
         }
 
         List<KnownPositionDTO> knownPositions = sharedPositions == null ? new ArrayList<>() : sharedPositions.toKnownPositionDTOList(wordCalculationConfig.rutBreakThreshold());
-        return new SolvleDTO("", wordFrequencyScores, fishingWordScores, remainingWords, containedWords.size(), characterCounts, knownPositions);
+        return new SolvleDTO("", wordFrequencyScores, fishingWordScores, remainingWords, remainingWordsComplete, containedWords.size(), characterCounts.toMap(), knownPositions);
     }
 
     public GameScoreDTO rateGame(String solution, List<String> guesses, DictionaryType wordList, WordConfig config, boolean hardMode, boolean requireAnswer) {
         WordCalculationConfig wordCalculationConfig = config.config.withHardMode(hardMode).withRequireAnswer(requireAnswer);
-        WordCalculationService wordCalculationService = new WordCalculationService(wordCalculationConfig);
+        WordCalculationService wordCalculationService = getCalculationService(wordCalculationConfig, null);
         Set<Word> wordSet = getPrimarySet(wordList);
 
         GameScoreDTO gameScoreDTO = new GameScoreDTO();
@@ -166,31 +235,44 @@ public class SolvleService {
         List<String> currentGuesses = new ArrayList<>();
         int previousRemaining = wordSet.size();
 
+        //while the player has made the same guesses as the solver, its next guess can be read from the decision tree
+        DecisionTree tree = getDecisionTree(new DecisionTreeKey(wordList, config, hardMode, requireAnswer));
+        int node = tree == null ? -1 : DecisionTree.ROOT;
+
         for (String guess : guesses) {
             log.info("Evaluating " + guess);
             //score player's guess
             WordScoreDTO playerScore = getScore(restrictions, guess, wordList, config, hardMode, requireAnswer);
 
-            //get Solvle's guess and score it as well
-            SolvleDTO analysis = getWordAnalysis(restrictions, wordList, config, hardMode, requireAnswer);
-            WordFrequencyScore solvleGuess = RemainingSolver.getNextGuess(wordCalculationConfig, analysis, currentGuesses);
-            WordScoreDTO solvleScore = getScore(restrictions, solvleGuess.word(), wordList, config, hardMode, requireAnswer);
+            //get Solvle's guess and score it as well, only analyzing the state once the game is off the tree
+            String solvleGuess;
+            double bestFishingScore;
+            if (node >= 0) {
+                solvleGuess = tree.guess(node);
+                bestFishingScore = tree.fishingScore(node);
+            } else {
+                SolvleDTO analysis = getWordAnalysis(restrictions, wordList, config, hardMode, requireAnswer);
+                solvleGuess = RemainingSolver.getNextGuess(wordCalculationConfig, analysis, currentGuesses).word();
+                bestFishingScore = analysis.fishingWords().stream().findFirst().get().freqScore();
+            }
+            WordScoreDTO solvleScore = getScore(restrictions, solvleGuess, wordList, config, hardMode, requireAnswer);
 
 
             restrictions = WordRestrictions.generateRestrictions(solutionWord, new Word(guess), restrictions);
-            Set<Word> newWords = wordCalculationService.findMatchingWords(wordSet, restrictions);
+            Set<Word> newWords = findMatchingWords(wordCalculationService, wordSet, restrictions);
             int actualRemaining = newWords.size();
 
-            log.info("Adding scores: {}:{} {}:{} actualRemaining:{}", guess, playerScore, solvleGuess.word(), solvleScore, actualRemaining);
-            gameScoreDTO.addRow(guess, playerScore, solvleGuess.word(), solvleScore, actualRemaining, previousRemaining, analysis.fishingWords().stream().findFirst().get());
+            log.info("Adding scores: {}:{} {}:{} actualRemaining:{}", guess, playerScore, solvleGuess, solvleScore, actualRemaining);
+            gameScoreDTO.addRow(guess, playerScore, solvleGuess, solvleScore, actualRemaining, previousRemaining, bestFishingScore);
             currentGuesses.add(guess); //to make sure Solvle doesn't guess an already chosen word
             previousRemaining = actualRemaining;
+            node = node >= 0 && guess.equals(solvleGuess) ? tree.child(node, feedbackCode(wordList, new Word(guess), solutionWord)) : -1;
         }
 
         return gameScoreDTO;
     }
 
-    @Cacheable("wordScore")
+    @Cacheable(value = "wordScore", keyGenerator = CacheConfig.RESTRICTIONS_KEY_GENERATOR, sync = true)
     public WordScoreDTO getScore(String restrictionString, String wordToScore, DictionaryType wordList, WordConfig wordConfig, boolean hardMode, boolean requireAnswer) {
         WordRestrictions wordRestrictions = new WordRestrictions(restrictionString.toLowerCase());
         return getScore(wordRestrictions, wordToScore, wordList, wordConfig, hardMode, requireAnswer);
@@ -202,8 +284,8 @@ public class SolvleService {
         Set<Word> wordSet = getPrimarySet(wordList);
 
         //get the counts
-        WordCalculationService wordCalculationService = new WordCalculationService(wordCalculationConfig);
-        Set<Word> containedWords = wordCalculationService.findMatchingWords(wordSet, wordRestrictions);
+        WordCalculationService wordCalculationService = getCalculationService(wordCalculationConfig, getFeedbackMatrix(wordList));
+        Set<Word> containedWords = findMatchingWords(wordCalculationService, wordSet, wordRestrictions);
 
         double score;
         // generate a per-character bonus score based on their frequency in the shared position sets
@@ -229,19 +311,13 @@ public class SolvleService {
         }
 
         PartitionStats stats;
-        if (wordRestrictions.equals(WordRestrictions.NO_RESTRICTIONS)) {
+        //hard mode scores ruts differently, so only the normal mode stats are cached
+        if (!hardMode && wordRestrictions.canonical().equals(WordRestrictions.NO_RESTRICTIONS)) {
             log.info("No restrictions - using cached partition data");
-            if (firstPartitionData.containsKey(wordList) && firstPartitionData.get(wordList).containsKey(word)) {
-                stats = firstPartitionData.get(wordList).get(word);
-            } else {
-                stats = wordCalculationService.getPartitionStatsForWord(wordRestrictions, containedWords, word);
-                if (!firstPartitionData.containsKey(wordList)) {
-                    firstPartitionData.put(wordList, new ConcurrentHashMap<>());
-                }
-                firstPartitionData.get(wordList).put(word, stats);
-            }
+            stats = firstPartitionData.computeIfAbsent(wordList, k -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(word, w -> wordCalculationService.getPartitionStatsForWord(containedWords, w));
         } else {
-            stats = wordCalculationService.getPartitionStatsForWord(wordRestrictions, containedWords, word);
+            stats = wordCalculationService.getPartitionStatsForWord(containedWords, word);
         }
 
         return new WordScoreDTO(stats.wordsRemaining(), score, stats.entropy());
@@ -256,61 +332,407 @@ public class SolvleService {
      * @param guess             Which number guess this is, used for identifying failure state (exceeding 6 guesses)
      * @return
      */
+    @Cacheable(value = "playOut", keyGenerator = CacheConfig.RESTRICTIONS_KEY_GENERATOR, sync = true)
     public Set<PlayOut> playOutSolutions(String restrictionString, DictionaryType wordList, WordConfig wordConfig, boolean hardMode, int guess) {
+        Set<PlayOut> averageSolveLengths = playOutSolutions(restrictionString, wordList, wordConfig, hardMode, guess, null, playOut -> {});
+        averageSolveLengths.forEach(s -> {
+            log.info(s);
+        });
+        return averageSolveLengths;
+    }
+
+    /**
+     * Same as {@link #playOutSolutions(String, DictionaryType, WordConfig, boolean, int)}, but stops at a deadline and
+     * reports each word as soon as its playouts are done. Results are not cached since they may be incomplete.
+     *
+     * @param deadline  Words that have not been played out by this time are left out, or null to play out every word
+     * @param onPlayOut Called with each word's results as they finish, possibly from several threads at once
+     * @return the words that were played out
+     */
+    public Set<PlayOut> playOutSolutions(String restrictionString, DictionaryType wordList, WordConfig wordConfig, boolean hardMode, int guess,
+                                         Instant deadline, Consumer<PlayOut> onPlayOut) {
 
         WordCalculationConfig wordCalculationConfig = wordConfig.config.withHardMode(hardMode);
 
-        WordCalculationService wordCalculationService = new WordCalculationService(wordCalculationConfig);
+        WordCalculationService wordCalculationService = getCalculationService(wordCalculationConfig, null);
         WordRestrictions wordRestrictions = new WordRestrictions(restrictionString);
-        Solver solver = new RemainingSolver(this, wordCalculationConfig);
+        // every playout in this request shares the solver's memo of restrictions to guesses
+        Solver solver = RemainingSolver.memoized(this, wordCalculationConfig);
 
         Set<Word> wordSet = getPrimarySet(wordList);
         Set<Word> fishingSet = getFishingSet(wordList);
 
         // get the potential solutions
-        Set<Word> containedWords = wordCalculationService.findMatchingWords(wordSet, wordRestrictions);
+        Set<Word> containedWords = findMatchingWords(wordCalculationService, wordSet, wordRestrictions);
 
         // run Solvle's rating assessment and merge the top valid and fishing words
         SolvleDTO result = getWordAnalysis(wordRestrictions, wordSet, fishingSet, wordCalculationConfig);
         Set<Word> wordPool = wordCalculationService.mergeWordPools(result.wordList(), result.fishingWords());
 
-
+        LocalDateTime start = LocalDateTime.now();
         Set<PlayOut> averageSolveLengths = wordCalculationService.getWordsBySolveLength(
-                containedWords, fishingSet, wordPool, solver, wordRestrictions, guess);
-        averageSolveLengths.forEach(s -> {
-            log.info(s);
-        });
+                containedWords, fishingSet, wordPool, solver, wordRestrictions, guess, deadline, onPlayOut);
+        timestamp("Playouts for " + restrictionString, start);
+        log.info(ExecutionPlanner.common().summary());
         return averageSolveLengths;
     }
 
-    private Map<Character, LongAdder> mergeCharacterCounts(Map<Integer, Map<Character, LongAdder>> countsByPos) {
-        // this returns slightly higher values than the original 'words with characters' map, because words with
-        // duplicate chars are represented multiple times in the countsByPos map. The information about words
-        // with duplicates is lost at this point and not worth recalculating.
-        return countsByPos.values().stream().flatMap(map -> map.entrySet().stream()).collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue(), (v1, v2) -> {
-            v1.add(v2.longValue());
-            return v1;
-        }));
+    /**
+     * Runs {@link #playOutSolutions(String, DictionaryType, WordConfig, boolean, int, Instant, Consumer)} in the
+     * background, stopping once the timeout has passed.
+     */
+    public CompletableFuture<Set<PlayOut>> playOutSolutionsAsync(String restrictionString, DictionaryType wordList, WordConfig wordConfig, boolean hardMode, int guess,
+                                                                 Duration timeout, Consumer<PlayOut> onPlayOut) {
+        Instant deadline = Instant.now().plus(timeout);
+        return CompletableFuture.supplyAsync(() -> playOutSolutions(restrictionString, wordList, wordConfig, hardMode, guess, deadline, onPlayOut), executorService);
+    }
+
+    protected Set<Word> getPrimarySet(DictionaryType wordList) {
+        Set<Word> primarySet = getWordSet(wordList);
+        if (!warmedDictionaries.contains(wordList) && warmedDictionaries.add(wordList)) {
+            warmDictionary(wordList);
+        }
+        return primarySet;
     }
 
-    private Set<Word> getPrimarySet(DictionaryType wordList) {
-        return dictionaries.get(wordList).wordsBySize().get(DEFAULT_LENGTH);
+    /**
+     * Starts building a dictionary's index and feedback matrix in the background the first time it is used as a
+     * primary set, so that later requests don't have to wait for them.
+     */
+    private void warmDictionary(DictionaryType wordList) {
+        CompletableFuture.runAsync(() -> {
+            getWordIndex(wordList);
+            getFeedbackMatrix(wordList);
+        }).exceptionally(e -> {
+            log.warn("Unable to prepare dictionary {}: {}", wordList, e.getMessage());
+            return null;
+        });
     }
 
-    private Set<Word> getFishingSet(DictionaryType wordList) {
+    protected Set<Word> getFishingSet(DictionaryType wordList) {
         // use the big dictionary for fishing simple words, because answers are not required to be valid
-        Dictionary dictionary = switch (wordList) {
-            case ICELANDIC -> dictionaries.get(DictionaryType.ICELANDIC_FISHING);
-            case SPANISH -> dictionaries.get(DictionaryType.SPANISH);
-            case GERMAN_6MAL5 -> dictionaries.get(DictionaryType.GERMAN_6MAL5);
-            case GERMAN_WORDLE_GLOBAL -> dictionaries.get(DictionaryType.GERMAN_WORDLE_GLOBAL);
-            default -> dictionaries.get(DictionaryType.BIG);
+        DictionaryType fishingType = switch (wordList) {
+            case ICELANDIC -> DictionaryType.ICELANDIC_FISHING;
+            case SPANISH -> DictionaryType.SPANISH;
+            case GERMAN_6MAL5 -> DictionaryType.GERMAN_6MAL5;
+            case GERMAN_WORDLE_GLOBAL -> DictionaryType.GERMAN_WORDLE_GLOBAL;
+            default -> DictionaryType.BIG;
         };
-        return dictionary.wordsBySize().get(DEFAULT_LENGTH);
+        //hard mode filters the fishing set, so it gets its dictionary's index, but not a feedback matrix of its own
+        return getWordSet(fishingType);
+    }
+
+    /**
+     * Returns the dictionary's words of the default length, remembering which dictionary the set came from so that
+     * callers who only pass the set along still filter it through the dictionary's index.
+     */
+    private Set<Word> getWordSet(DictionaryType wordList) {
+        Set<Word> wordSet = dictionaries.get(wordList).wordsBySize().get(DEFAULT_LENGTH);
+        if (!wordSetTypes.containsKey(wordSet)) {
+            synchronized (warmedDictionaries) {
+                if (!wordSetTypes.containsKey(wordSet)) {
+                    Map<Set<Word>, DictionaryType> types = new IdentityHashMap<>(wordSetTypes);
+                    types.put(wordSet, wordList);
+                    wordSetTypes = types;
+                }
+            }
+        }
+        return wordSet;
+    }
+
+    /**
+     * A service only holds its configuration and the tables precomputed from it, so one is shared by every request
+     * with the same configuration and feedback matrix instead of building one per request or solver step.
+     */
+    private WordCalculationService getCalculationService(WordCalculationConfig config, FeedbackMatrix feedbackMatrix) {
+        return calculationServices.get(new CalculationServiceKey(config, feedbackMatrix), key -> new WordCalculationService(key.config(), key.feedbackMatrix()));
+    }
+
+    /**
+     * Returns the feedback patterns for every guess in this dictionary's fishing and primary sets against every
+     * word in its primary set. Built the first time a dictionary is analyzed and then reused for all requests.
+     * @param wordList Dictionary whose primary set will be the answers in the matrix
+     * @return The matrix, or null if this dictionary's words are too long to be encoded
+     */
+    public FeedbackMatrix getFeedbackMatrix(DictionaryType wordList) {
+        if (DEFAULT_LENGTH > FeedbackMatrix.MAX_WORD_LENGTH) {
+            return null;
+        }
+        return feedbackMatrices.computeIfAbsent(wordList, type -> {
+            LocalDateTime start = LocalDateTime.now();
+            List<Word> answers = new ArrayList<>(getPrimarySet(type));
+            List<Word> guesses = Stream.concat(getFishingSet(type).stream(), answers.stream()).distinct().toList();
+            FeedbackMatrix matrix = new FeedbackMatrix(guesses, answers);
+            timestamp("Feedback matrix for " + type + " (" + guesses.size() + "x" + answers.size() + ")", start);
+            return matrix;
+        });
+    }
+
+    /**
+     * Finds the feedback matrix for callers that only have the word set, such as solvers. Only matches one of the
+     * dictionary primary sets exactly, so filtered subsets and fishing sets fall back to computing feedback directly.
+     */
+    private FeedbackMatrix getFeedbackMatrix(Set<Word> wordSet) {
+        DictionaryType type = wordSetTypes.get(wordSet);
+        return type == null || !warmedDictionaries.contains(type) ? null : getFeedbackMatrix(type);
+    }
+
+    /**
+     * Filters a word set by the restrictions. Dictionary word sets are filtered through their bitset index, which is
+     * built on first use; any other set is scanned word by word.
+     */
+    private Set<Word> findMatchingWords(WordCalculationService wordCalculationService, Set<Word> wordSet, WordRestrictions wordRestrictions) {
+        WordIndex index = getWordIndex(wordSet);
+        if (index == null) {
+            return wordCalculationService.findMatchingWords(wordSet, wordRestrictions);
+        }
+        return index.findMatchingWords(wordRestrictions, word -> wordCalculationService.isValidWord(word, wordRestrictions));
+    }
+
+    protected WordIndex getWordIndex(Set<Word> wordSet) {
+        DictionaryType type = wordSetTypes.get(wordSet);
+        return type == null ? null : getWordIndex(type);
+    }
+
+    /**
+     * @return the bitset index of this dictionary's primary set, built the first time it is requested
+     */
+    public WordIndex getWordIndex(DictionaryType wordList) {
+        return wordIndexes.computeIfAbsent(wordList, type -> {
+            LocalDateTime start = LocalDateTime.now();
+            WordIndex index = new WordIndex(getWordSet(type));
+            timestamp("Word index for " + type, start);
+            return index;
+        });
+    }
+
+    /**
+     * Computes the partition stats of every guess against the full primary set, which {@link #getScore} uses for
+     * opening guesses instead of partitioning the whole dictionary per request.
+     */
+    public void preloadPartitionData(DictionaryType wordList) {
+        Set<Word> wordSet = getPrimarySet(wordList);
+        WordCalculationService wordCalculationService = getCalculationService(PARTITION_DATA_CONFIG, getFeedbackMatrix(wordList));
+        Map<Word, PartitionStats> partitionData = firstPartitionData.computeIfAbsent(wordList, k -> new ConcurrentHashMap<>());
+        Stream.concat(getFishingSet(wordList).stream(), wordSet.stream()).distinct().parallel()
+                .filter(word -> !partitionData.containsKey(word))
+                .forEach(word -> partitionData.put(word,
+                        wordCalculationService.getPartitionStatsForWord(wordSet, word)));
+    }
+
+    /**
+     * @return a copy of the opening guess partition stats computed so far for this dictionary
+     */
+    public Map<Word, PartitionStats> getFirstPartitionData(DictionaryType wordList) {
+        return Map.copyOf(firstPartitionData.getOrDefault(wordList, Map.of()));
+    }
+
+    /**
+     * Adds previously computed opening guess partition stats, such as ones saved by an earlier run.
+     */
+    public void addFirstPartitionData(DictionaryType wordList, Map<Word, PartitionStats> partitionData) {
+        firstPartitionData.computeIfAbsent(wordList, k -> new ConcurrentHashMap<>()).putAll(partitionData);
+    }
+
+    /**
+     * @return the decision tree for these settings, or null if it has not been built or loaded
+     */
+    public DecisionTree getDecisionTree(DecisionTreeKey key) {
+        return decisionTrees.get(key);
+    }
+
+    /**
+     * @return true if a decision tree for these settings reaches this state. The solver ranked every best word of each
+     * state on the tree when building it, so those analyses are worth caching in full.
+     */
+    public boolean isOnDecisionTree(String restrictionString, DictionaryType wordList, WordConfig wordConfig, boolean hardMode, boolean requireAnswer) {
+        DecisionTreeStates states = decisionTreeStates.get(new DecisionTreeKey(wordList, wordConfig, hardMode, requireAnswer));
+        return states != null && states.contains(new WordRestrictions(restrictionString.toLowerCase()));
+    }
+
+    /**
+     * Canonical restrictions without the available letters that no word uses. Trees start from every letter of every
+     * alphabet, while requests only list the letters of their own, and the unused letters can't change which words match.
+     */
+    private static WordRestrictions treeState(WordRestrictions restrictions, Set<Character> letters) {
+        WordRestrictions canonical = restrictions.canonical();
+        String available = canonical.word().word().chars().filter(c -> letters.contains((char) c))
+                .collect(StringBuilder::new, StringBuilder::appendCodePoint, StringBuilder::append).toString();
+        return new WordRestrictions(new Word(available), canonical.requiredLetters(), canonical.letterPositions(),
+                canonical.positionExclusions(), canonical.minimumLetterFrequencies()).canonical();
+    }
+
+    private DecisionTreeStates decisionTreeStates(DictionaryType wordList, Set<WordRestrictions> restrictions) {
+        Set<Character> letters = Stream.concat(getPrimarySet(wordList).stream(), getFishingSet(wordList).stream())
+                .flatMapToInt(word -> word.word().chars())
+                .mapToObj(c -> (char) c)
+                .collect(Collectors.toSet());
+        return new DecisionTreeStates(letters, restrictions.stream().map(state -> treeState(state, letters)).collect(Collectors.toSet()));
+    }
+
+    /**
+     * Identifies the inputs a decision tree was built from: the solver configuration and every word in the
+     * dictionary's primary and fishing sets. Changes to the solver's logic are not covered and need a new
+     * {@link DecisionTree} version instead.
+     */
+    public long getDecisionTreeFingerprint(DecisionTreeKey key) {
+        return fingerprint(key.config(), key.dictionary());
+    }
+
+    /**
+     * Identifies the inputs of {@link #preloadPartitionData}, so saved partition data can be discarded once the
+     * dictionary or scoring configuration changes.
+     */
+    public long getPartitionDataFingerprint(DictionaryType wordList) {
+        return fingerprint(PARTITION_DATA_CONFIG, wordList);
+    }
+
+    private long fingerprint(WordCalculationConfig config, DictionaryType wordList) {
+        long fingerprint = config.toString().hashCode();
+        for (Word word : getPrimarySet(wordList)) {
+            fingerprint = fingerprint * 31 + word.word().hashCode();
+        }
+        for (Word word : getFishingSet(wordList)) {
+            fingerprint = fingerprint * 31 + word.word().hashCode();
+        }
+        return fingerprint;
+    }
+
+    /**
+     * Runs the {@link RemainingSolver} against every solution in the dictionary at once, analyzing each restriction
+     * state only one time, and records its guesses as a decision tree. The tree is used for solving and rating games,
+     * and for matching analysis requests to its states, from then on. The analyses are dropped once the build is done.
+     */
+    public DecisionTree buildDecisionTree(DecisionTreeKey key) {
+        LocalDateTime start = LocalDateTime.now();
+        DecisionTree.Builder builder = new DecisionTree.Builder(getDecisionTreeFingerprint(key));
+        Set<WordRestrictions> states = new HashSet<>();
+        addDecisionTreeNode(key, builder, states, WordRestrictions.noRestrictions(), new ArrayList<>());
+
+        DecisionTree tree = builder.build();
+        decisionTreeStates.put(key, decisionTreeStates(key.dictionary(), states));
+        decisionTrees.put(key, tree);
+        timestamp("Decision tree for " + key + " (" + tree.size() + " nodes)", start);
+        return tree;
+    }
+
+    /**
+     * Uses a previously built tree the same way as {@link #buildDecisionTree}. Every feedback group reachable in the
+     * dictionary is checked to have a guess, which only needs word filtering and not a full analysis.
+     * @throws IllegalArgumentException if the tree was built from a different dictionary or configuration, or is missing nodes
+     */
+    public void addDecisionTree(DecisionTreeKey key, DecisionTree tree) {
+        if (tree.fingerprint() != getDecisionTreeFingerprint(key)) {
+            throw new IllegalArgumentException("Decision tree does not match the current dictionary and configuration for " + key);
+        }
+        WordCalculationService wordCalculationService = getCalculationService(key.config(), null);
+        Set<Word> wordSet = getPrimarySet(key.dictionary());
+        Set<WordRestrictions> states = new HashSet<>();
+
+        Deque<Map.Entry<Integer, WordRestrictions>> remaining = new ArrayDeque<>();
+        remaining.push(Map.entry(DecisionTree.ROOT, WordRestrictions.noRestrictions()));
+        while (!remaining.isEmpty()) {
+            Map.Entry<Integer, WordRestrictions> entry = remaining.pop();
+            WordRestrictions restrictions = entry.getValue();
+            states.add(restrictions);
+
+            Word guess = new Word(tree.guess(entry.getKey()));
+            groupByFeedback(key.dictionary(), guess, findMatchingWords(wordCalculationService, wordSet, restrictions)).forEach((code, solution) -> {
+                int child = tree.child(entry.getKey(), code);
+                if (child < 0) {
+                    throw new IllegalArgumentException("Decision tree for " + key + " has no guess after " + guess + " for " + solution);
+                }
+                remaining.push(Map.entry(child, WordRestrictions.generateRestrictions(solution, guess, restrictions)));
+            });
+        }
+        decisionTreeStates.put(key, decisionTreeStates(key.dictionary(), states));
+        decisionTrees.put(key, tree);
+    }
+
+    /**
+     * Solves the word by following the decision tree for these settings, or by running the solver if there is no tree
+     * or the first word takes the game off of it.
+     */
+    public List<String> solveWord(DecisionTreeKey key, Word word, String firstWord) {
+        DecisionTree tree = getDecisionTree(key);
+        if (tree != null && getPrimarySet(key.dictionary()).contains(word) && (firstWord.isEmpty() || firstWord.equals(tree.guess(DecisionTree.ROOT)))) {
+            List<String> solution = new ArrayList<>();
+            for (int node = DecisionTree.ROOT; node >= 0; node = tree.child(node, feedbackCode(key.dictionary(), new Word(tree.guess(node)), word))) {
+                solution.add(tree.guess(node));
+                if (tree.guess(node).equals(word.word())) {
+                    return solution;
+                }
+            }
+        }
+        return solveWord(new RemainingSolver(this, key.config()), word, firstWord, key.dictionary());
+    }
+
+    private int addDecisionTreeNode(DecisionTreeKey key, DecisionTree.Builder builder, Set<WordRestrictions> states, WordRestrictions restrictions,
+                                    List<String> previousGuesses) {
+        WordCalculationConfig config = key.config();
+        Set<Word> wordSet = getPrimarySet(key.dictionary());
+
+        SolvleDTO analysis = getWordAnalysis(restrictions, wordSet, getFishingSet(key.dictionary()), config);
+        WordFrequencyScore nextGuess = RemainingSolver.getNextGuess(config, analysis, previousGuesses);
+        if (previousGuesses.contains(nextGuess.word())) {
+            throw new IllegalStateException("Stuck in a loop guessing " + nextGuess.word() + " after " + previousGuesses);
+        }
+
+        int node = builder.addNode(nextGuess.word(), analysis.fishingWords().stream().findFirst().get().freqScore());
+        states.add(restrictions);
+
+        Word guess = new Word(nextGuess.word());
+        List<String> guesses = new ArrayList<>(previousGuesses);
+        guesses.add(guess.word());
+        Set<Word> containedWords = findMatchingWords(getCalculationService(config, null), wordSet, restrictions);
+        groupByFeedback(key.dictionary(), guess, containedWords).forEach((code, solution) -> builder.addChild(node, code,
+                addDecisionTreeNode(key, builder, states, WordRestrictions.generateRestrictions(solution, guess, restrictions), guesses)));
+        return node;
+    }
+
+    /**
+     * Finds the states a player is most likely to reach next by playing this guess, for analyzing them ahead of time.
+     * @param limit Maximum number of states to return
+     * @return the restrictions after each feedback the guess could get, largest group of solutions first
+     */
+    public List<WordRestrictions> getLikelyNextRestrictions(WordRestrictions wordRestrictions, DictionaryType wordList, WordCalculationConfig config,
+                                                            Word guess, int limit) {
+        Set<Word> wordSet = getPrimarySet(wordList);
+        Set<Word> containedWords = findMatchingWords(getCalculationService(config, getFeedbackMatrix(wordSet)), wordSet, wordRestrictions);
+        Map<Integer, List<Word>> groups = new TreeMap<>();
+        for (Word word : containedWords) {
+            if (!word.equals(guess)) {
+                groups.computeIfAbsent(feedbackCode(wordList, guess, word), code -> new ArrayList<>()).add(word);
+            }
+        }
+        return groups.values().stream()
+                .sorted(Comparator.comparingInt((List<Word> group) -> group.size()).reversed())
+                .limit(limit)
+                .map(group -> WordRestrictions.generateRestrictions(group.get(0), guess, wordRestrictions))
+                .toList();
+    }
+
+    /**
+     * Groups the words by the feedback they would give for the guess, leaving out the guess itself since that ends the game.
+     * @return one word from each group, by feedback code
+     */
+    private Map<Integer, Word> groupByFeedback(DictionaryType wordList, Word guess, Set<Word> words) {
+        Map<Integer, Word> groups = new TreeMap<>();
+        for (Word word : words) {
+            if (!word.equals(guess)) {
+                groups.putIfAbsent(feedbackCode(wordList, guess, word), word);
+            }
+        }
+        return groups;
+    }
+
+    private int feedbackCode(DictionaryType wordList, Word guess, Word solution) {
+        FeedbackMatrix matrix = getFeedbackMatrix(wordList);
+        return matrix == null ? FeedbackMatrix.computeCode(guess, solution) : matrix.code(guess, solution);
     }
 
     public SharedPositions findSharedWordRestrictions(DictionaryType wordList) {
-        WordCalculationService wordCalculationService = new WordCalculationService(WordCalculationConfig.SIMPLE);
+        WordCalculationService wordCalculationService = getCalculationService(WordCalculationConfig.SIMPLE, null);
         return wordCalculationService.findSharedWordRestrictions(getPrimarySet(wordList));
     }
 
@@ -340,7 +762,7 @@ public class SolvleService {
         final String startingWord = firstWord;
 
         Map<String, List<String>> outcome = new ConcurrentHashMap<>();
-        words.stream().forEach(word -> {
+        words.parallelStream().forEach(word -> {
             List<String> guesses = solveWord(solver, word, startingWord, wordList);
             outcome.put(word.word(), guesses);
         });
@@ -348,13 +770,31 @@ public class SolvleService {
         return outcome;
     }
 
+    /**
+     * Solves every word in the dictionary in parallel with a {@link RemainingSolver} that remembers the guess for each
+     * restriction state, so states shared by many solutions (every game's second guess comes from one of a few hundred
+     * states) are only analyzed once.
+     *
+     * @param firstWord Optional. Overrides the configuration's first guess.
+     * @return each word's guesses, along with statistics on how many guesses they took
+     */
+    public DictionarySolution solveDictionary(WordCalculationConfig wordCalculationConfig, String firstWord, DictionaryType wordList) {
+        LocalDateTime start = LocalDateTime.now();
+        RemainingSolver solver = RemainingSolver.memoized(this, wordCalculationConfig);
+        DictionarySolution solution = DictionarySolution.of(solveDictionary(solver, firstWord, wordCalculationConfig, wordList));
+        log.info("Solved {} words starting with {} in {} from {} states. Mean: {}, Max: {}, Counts: {}", solution.guesses().size(), solution.firstWord(),
+                Duration.between(start, LocalDateTime.now()), solver.memoizedStates(), solution.mean(), solution.max(), solution.counts());
+        log.info(ExecutionPlanner.common().summary());
+        return solution;
+    }
+
     public Map<String, List<String>> solveDictionary(Solver solver, List<String> previousGuesses, WordCalculationConfig wordCalculationConfig, String startingRestrictions, DictionaryType wordList) {
         Set<Word> words = getPrimarySet(DictionaryType.SIMPLE);
         SolvleDTO guess = getWordAnalysis(new WordRestrictions(startingRestrictions.toLowerCase()), words, getFishingSet(DictionaryType.SIMPLE), wordCalculationConfig);
         final String firstWord = guess.fishingWords().stream().findFirst().get().word();
 
         Map<String, List<String>> outcome = new ConcurrentHashMap<>();
-        words.stream().forEach(word -> {
+        words.parallelStream().forEach(word -> {
             List<String> guesses = new ArrayList<>(previousGuesses);
             guesses.addAll(solveWord(solver, word, firstWord, wordList));
             outcome.put(word.word(), guesses);
@@ -391,7 +831,7 @@ public class SolvleService {
 
     public Set<TupleScore> findBestNWords(Integer bestNWords, DictionaryType wordList, WordConfig wordConfig, boolean requireAnswer) {
         var config = wordConfig.config.withRequireAnswer(requireAnswer);
-        WordCalculationService wordCalculationService = new WordCalculationService(config);
+        WordCalculationService wordCalculationService = getCalculationService(config, getFeedbackMatrix(wordList));
 
 
         Set<Word> wordSet = getPrimarySet(wordList);
@@ -407,7 +847,7 @@ public class SolvleService {
         AtomicInteger tupleCounter = new AtomicInteger();
 
         guessTuples.parallelStream().forEach(guessTuple -> {
-            PartitionStats stats = wordCalculationService.getPartitionStatsForTuple(WordRestrictions.NO_RESTRICTIONS, wordSet, guessTuple);
+            PartitionStats stats = wordCalculationService.getPartitionStatsForTuple(wordSet, guessTuple);
             if (stats != null) {
                 tupleScores.add(new TupleScore(guessTuple, stats));
             }
@@ -420,10 +860,10 @@ public class SolvleService {
         return tupleScores;
     }
 
-    @Cacheable("tupleScore")
+    @Cacheable(value = "tupleScore", sync = true)
     public TupleScore scoreTuple(Set<Word> tuple, DictionaryType wordList) {
-        WordCalculationService wordCalculationService = new WordCalculationService(WordCalculationConfig.OPTIMAL_MEAN_EXTENDED_PARTITIONING);
-        return new TupleScore(tuple, wordCalculationService.getPartitionStatsForTuple(WordRestrictions.NO_RESTRICTIONS, getPrimarySet(wordList), tuple));
+        WordCalculationService wordCalculationService = getCalculationService(WordCalculationConfig.OPTIMAL_MEAN_EXTENDED_PARTITIONING, getFeedbackMatrix(wordList));
+        return new TupleScore(tuple, wordCalculationService.getPartitionStatsForTuple(getPrimarySet(wordList), tuple));
     }
 
     private final Map<SimpleKey, SolveJob<Set<TupleScore>>> tupleJobCache = new ConcurrentHashMap<>();
@@ -463,12 +903,13 @@ public class SolvleService {
     private void finishTuple(SolveJob<Set<TupleScore>> response, Set<Word> tuple, DictionaryType wordList, boolean requireAnswer) {
         response.setStatus(JobStatus.RUNNING);
         Set<Word> wordSet = requireAnswer ? getPrimarySet(wordList) : getFishingSet(wordList);
-        WordCalculationService wordCalculationService = new WordCalculationService(WordCalculationConfig.OPTIMAL_MEAN_EXTENDED_PARTITIONING);
+        WordCalculationService wordCalculationService = getCalculationService(WordCalculationConfig.OPTIMAL_MEAN_EXTENDED_PARTITIONING, getFeedbackMatrix(wordList));
         log.info("Checking {} words for completion of tuple {}", wordSet.size(), tuple);
         response.setTasks(wordSet.size());
         response.setCompletedTasks(new AtomicInteger());
         response.setEvaluatedTuples(new AtomicInteger());
-        final Set<Word> allSolutions = getPrimarySet(wordList);
+        //partition the solutions by the existing tuple once, then each candidate only splits those groups further
+        final TuplePartition basePartition = wordCalculationService.getTuplePartition(getPrimarySet(wordList), tuple);
         final AtomicBoolean timeout = new AtomicBoolean(false);
         int maxOverlap = tuple.size() > 3 ? 2 : 1;
         final int[] preExistingDuplicates = countPreExistingDuplicates(tuple);
@@ -492,7 +933,7 @@ public class SolvleService {
                     Set<Word> newSet = new HashSet<>(tuple);
                     newSet.add(word);
                     response.getEvaluatedTuples().incrementAndGet();
-                    return new TupleScore(newSet, wordCalculationService.getPartitionStatsForTuple(WordRestrictions.NO_RESTRICTIONS, allSolutions, newSet));
+                    return new TupleScore(newSet, wordCalculationService.getPartitionStatsForTuple(basePartition, word));
                 }).sorted().limit(100).collect(Collectors.toCollection(TreeSet::new));
         response.setResult(tuples);
         response.setStatus(JobStatus.COMPLETED);
@@ -501,7 +942,7 @@ public class SolvleService {
 
     protected Set<Set<Word>> generateNWordLists(Set<Word> containedWords, Set<Word> fishingSet, int bestNWords) {
         log.info("Generating {}-word lists for {} solutions using {} potential guesses", bestNWords, containedWords.size(), fishingSet.size());
-        WordCalculationService wordCalculationService = new WordCalculationService(WordCalculationConfig.OPTIMAL_MEAN_EXTENDED_PARTITIONING);
+        WordCalculationService wordCalculationService = getCalculationService(WordCalculationConfig.OPTIMAL_MEAN_EXTENDED_PARTITIONING, null);
         WordRestrictions wordRestrictions = WordRestrictions.NO_RESTRICTIONS;
         var wordsToCheck = wordCalculationService.wordsByRemainingGuesses(wordRestrictions, containedWords, fishingSet);
 
@@ -580,83 +1021,26 @@ public class SolvleService {
 
 
     final int TOP_N = 2000;
-    final static long LOG_THRESHOLD = 10_000_000;
 
     protected Set<Set<Word>> generateNWordListsHeuristic(Set<Word> availableGuesses, Set<Word> availableAnswers, int bestNWords, WordCalculationService wordCalculationService) {
 
         log.info("Generating size {} wordlists", bestNWords);
-        Map<Integer, Map<Character, LongAdder>> charCounts = wordCalculationService.calculateCharacterCountsByPosition(availableAnswers);
-        final List<Word> emptyTuple = new ArrayList<>();
-        List<Word> wordsWithoutDoubleLetters = availableGuesses.stream().filter(word -> isValidCombination(emptyTuple, word)).toList();
+        int len = availableAnswers.iterator().next().getLength();
+        CharacterCounts charCounts = wordCalculationService.calculateCharacterCountsByPosition(availableAnswers);
+        List<Word> wordsWithoutDoubleLetters = availableGuesses.stream()
+                .filter(word -> word.hasPackedLetters() && Long.bitCount(word.letterMask()) == word.getLength())
+                .toList();
         log.info("Removed {} words with duplicate letters", availableGuesses.size() - wordsWithoutDoubleLetters.size());
         final long expectedTuples = binomialCoefficient(wordsWithoutDoubleLetters.size(), bestNWords);
 
-        AtomicLong count = new AtomicLong(0);
-
-        // Generate a stream of combinations and process them in parallel.
-        PriorityQueue<Map.Entry<Set<Word>, Double>> topEntries = generateCombinations(wordsWithoutDoubleLetters, 0, bestNWords, new ArrayList<>())
-                .parallel()
-                .peek(words -> {
-                    long evalCount = count.incrementAndGet();
-                    if (evalCount % LOG_THRESHOLD == 0) {
-                        log.info("Evaluated {} / {} tuples ({}%)",
-                                evalCount,
-                                expectedTuples,
-                                Math.round(evalCount * 100.0 / expectedTuples));
-                    }
-                })
-                .map(combination -> {
-                    double score = wordCalculationService.calculateTupleFreqScoreByPosition(
-                            new HashSet<>(combination), charCounts, availableAnswers, combination.get(0).getLength());
-                    return new AbstractMap.SimpleEntry<Set<Word>, Double>(new HashSet<>(combination), score);
-                })
-                .collect(Collector.of(
-                        // Supplier: create a new min-heap (priority queue) ordered by score.
-                        () -> new PriorityQueue<>(Comparator.comparingDouble(Map.Entry::getValue)),
-                        // Accumulator: add an entry, keeping only the top TOP_N combinations.
-                        (pq, entry) -> {
-                            if (pq.size() < TOP_N) {
-                                pq.offer(entry);
-                            } else if (entry.getValue() > pq.peek().getValue()) {
-                                pq.poll();
-                                pq.offer(entry);
-                            }
-                        },
-                        // Combiner: merge two priority queues.
-                        (pq1, pq2) -> {
-                            pq2.forEach(entry -> {
-                                if (pq1.size() < TOP_N) {
-                                    pq1.offer(entry);
-                                } else if (entry.getValue() > pq1.peek().getValue()) {
-                                    pq1.poll();
-                                    pq1.offer(entry);
-                                }
-                            });
-                            return pq1;
-                        }
-                ));
+        TupleSearch search = new TupleSearch(wordsWithoutDoubleLetters,
+                wordCalculationService.tupleFreqScorer(charCounts, availableAnswers.size(), len),
+                bestNWords, TOP_N, wordCalculationService.isTupleScoreSubadditive(len));
+        Map<Set<Word>, Double> topEntries = search.search();
 
+        log.info("Evaluated {} of {} tuples", search.evaluated(), expectedTuples);
         log.info("Returning top {} wordLists - {}", topEntries.size(), topEntries);
-        return topEntries.stream().map(Map.Entry::getKey).collect(Collectors.toSet());
-    }
-
-    private Stream<List<Word>> generateCombinations(List<Word> wordList, int start, int bestNWords, List<Word> currentCombination) {
-        if (currentCombination.size() == bestNWords) {
-            return Stream.of(currentCombination);
-        }
-        return IntStream.range(start, wordList.size())
-                // Filter out indices that would lead to an invalid combination.
-                .filter(i -> currentCombination.isEmpty() || isValidCombination(currentCombination, wordList.get(i), currentCombination.size() > 3 ? 2 : 1, null))
-                .boxed()
-                .flatMap(i -> {
-                    List<Word> newCombination = new ArrayList<>(currentCombination);
-                    newCombination.add(wordList.get(i));
-                    return generateCombinations(wordList, i + 1, bestNWords, newCombination);
-                });
-    }
-
-    private static boolean isValidCombination(List<Word> initialWords, Word newWord) {
-        return isValidCombination(initialWords, newWord, 1, null);
+        return topEntries.keySet();
     }
 
     private static boolean isValidCombination(List<Word> initialWords, Word newWord, int maxDuplicateLetters, int[] initialCounts) {
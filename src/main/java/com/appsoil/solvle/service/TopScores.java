@@ -0,0 +1,137 @@
+package com.appsoil.solvle.service;
+
+import com.appsoil.solvle.data.Word;
+import com.appsoil.solvle.data.WordFrequencyScore;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Bounded heap of the best word scores, ranked the same way as {@link WordFrequencyScore} without partition stats:
+ * highest score first, then lowest natural ordering. Scores, orderings and word indexes are kept in primitive arrays
+ * so that words that don't make the cut allocate nothing, and records are only created for the words that are kept.
+ */
+final class TopScores {
+
+    private final int capacity;
+    private final double[] scores;
+    private final int[] orders;
+    private final int[] indexes;
+    private int size;
+
+    TopScores(int capacity) {
+        this.capacity = Math.max(capacity, 0);
+        this.scores = new double[this.capacity];
+        this.orders = new int[this.capacity];
+        this.indexes = new int[this.capacity];
+    }
+
+    /**
+     * Adds the word if there is room, or if it ranks ahead of the lowest word kept, which is dropped.
+     * @param order The word's natural ordering, used to break ties
+     * @param index Position of the word in the caller's word array
+     */
+    void offer(double score, int order, int index) {
+        if (size < capacity) {
+            int slot = size++;
+            set(slot, score, order, index);
+            siftUp(slot);
+        } else if (capacity > 0 && isWorse(scores[0], orders[0], score, order)) {
+            set(0, score, order, index);
+            siftDown(0);
+        }
+    }
+
+    boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * @return the lowest score kept
+     */
+    double min() {
+        return scores[0];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Offers every word in the other heap to this one.
+     * @return this heap
+     */
+    TopScores addAll(TopScores other) {
+        for (int slot = 0; slot < other.size; slot++) {
+            offer(other.scores[slot], other.orders[slot], other.indexes[slot]);
+        }
+        return this;
+    }
+
+    /**
+     * @param words The array the offered indexes refer to
+     */
+    Set<WordFrequencyScore> toWordFrequencyScores(Word[] words) {
+        Set<WordFrequencyScore> result = new TreeSet<>();
+        for (int slot = 0; slot < size; slot++) {
+            Word word = words[indexes[slot]];
+            result.add(new WordFrequencyScore(word.getOrder(), word.word(), scores[slot], null));
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the first word ranks after the second, following {@link WordFrequencyScore#compareTo}
+     */
+    private static boolean isWorse(double score, int order, double otherScore, int otherOrder) {
+        return score == otherScore ? order > otherOrder : Double.compare(score, otherScore) < 0;
+    }
+
+    private void set(int slot, double score, int order, int index) {
+        scores[slot] = score;
+        orders[slot] = order;
+        indexes[slot] = index;
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (!isWorse(scores[slot], orders[slot], scores[parent], orders[parent])) {
+                return;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int worst = slot;
+            int left = 2 * slot + 1;
+            int right = left + 1;
+            if (left < size && isWorse(scores[left], orders[left], scores[worst], orders[worst])) {
+                worst = left;
+            }
+            if (right < size && isWorse(scores[right], orders[right], scores[worst], orders[worst])) {
+                worst = right;
+            }
+            if (worst == slot) {
+                return;
+            }
+            swap(slot, worst);
+            slot = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        int order = orders[a];
+        orders[a] = orders[b];
+        orders[b] = order;
+        int index = indexes[a];
+        indexes[a] = indexes[b];
+        indexes[b] = index;
+    }
+}
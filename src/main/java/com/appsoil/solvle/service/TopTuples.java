@@ -0,0 +1,120 @@
+package com.appsoil.solvle.service;
+
+/**
+ * Bounded min-heap of the highest scoring tuples, stored as parallel primitive arrays of scores and word indexes
+ * so that offering a tuple that doesn't make the cut allocates nothing.
+ */
+final class TopTuples {
+
+    private final int capacity;
+    private final int tupleSize;
+    private final double[] scores;
+    private final int[] tuples; //slot i holds the word indexes at [i * tupleSize, (i + 1) * tupleSize)
+    private int size;
+
+    TopTuples(int capacity, int tupleSize) {
+        this.capacity = capacity;
+        this.tupleSize = tupleSize;
+        this.scores = new double[capacity];
+        this.tuples = new int[capacity * tupleSize];
+    }
+
+    /**
+     * Adds the tuple if there is room, or if it scores higher than the lowest tuple kept, which is dropped.
+     * @param tuple Word indexes, copied if the tuple is kept
+     */
+    void offer(double score, int[] tuple) {
+        offer(score, tuple, 0);
+    }
+
+    private void offer(double score, int[] tuple, int offset) {
+        if (size < capacity) {
+            int slot = size++;
+            set(slot, score, tuple, offset);
+            siftUp(slot);
+        } else if (capacity > 0 && score > scores[0]) {
+            set(0, score, tuple, offset);
+            siftDown(0);
+        }
+    }
+
+    boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * @return the lowest score kept
+     */
+    double min() {
+        return scores[0];
+    }
+
+    int size() {
+        return size;
+    }
+
+    double score(int slot) {
+        return scores[slot];
+    }
+
+    int wordIndex(int slot, int position) {
+        return tuples[slot * tupleSize + position];
+    }
+
+    /**
+     * Offers every tuple in the other heap to this one.
+     * @return this heap
+     */
+    TopTuples addAll(TopTuples other) {
+        for (int slot = 0; slot < other.size; slot++) {
+            offer(other.scores[slot], other.tuples, slot * tupleSize);
+        }
+        return this;
+    }
+
+    private void set(int slot, double score, int[] tuple, int offset) {
+        scores[slot] = score;
+        System.arraycopy(tuple, offset, tuples, slot * tupleSize, tupleSize);
+    }
+
+    private void siftUp(int slot) {
+        while (slot > 0) {
+            int parent = (slot - 1) >>> 1;
+            if (scores[slot] >= scores[parent]) {
+                return;
+            }
+            swap(slot, parent);
+            slot = parent;
+        }
+    }
+
+    private void siftDown(int slot) {
+        while (true) {
+            int smallest = slot;
+            int left = 2 * slot + 1;
+            int right = left + 1;
+            if (left < size && scores[left] < scores[smallest]) {
+                smallest = left;
+            }
+            if (right < size && scores[right] < scores[smallest]) {
+                smallest = right;
+            }
+            if (smallest == slot) {
+                return;
+            }
+            swap(slot, smallest);
+            slot = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        for (int i = 0; i < tupleSize; i++) {
+            int word = tuples[a * tupleSize + i];
+            tuples[a * tupleSize + i] = tuples[b * tupleSize + i];
+            tuples[b * tupleSize + i] = word;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.appsoil.solvle.service;
+
+import com.appsoil.solvle.data.Alphabet;
+import com.appsoil.solvle.data.Word;
+
+/**
+ * Incremental form of {@link WordCalculationService#calculateTupleFreqScoreByPosition} for tuples of packed words.
+ * That score is a sum over each distinct (position, letter) pair in the tuple of a fixed per-pair value, times a
+ * uniqueness bonus that only depends on how many times the letter appears in the whole tuple. The per-pair values are
+ * precomputed into a double[position][letter] table, so extending a tuple by one word only touches that word's letters.
+ */
+final class TupleFreqScorer {
+
+    private final double[][] pairScores; //[position][alphabet index], without the uniqueness bonus
+    private final double uniqueBonus;
+    private final int length;
+
+    TupleFreqScorer(double[][] pairScores, double uniqueBonus) {
+        this.pairScores = pairScores;
+        this.uniqueBonus = uniqueBonus;
+        this.length = pairScores.length;
+    }
+
+    Partial empty() {
+        return new Partial(length);
+    }
+
+    /**
+     * @return the score of a tuple containing only this word
+     */
+    double wordScore(Word word) {
+        Partial into = empty();
+        extend(empty(), word, into);
+        return into.score;
+    }
+
+    /**
+     * Scores the tuple plus one word, without changing the tuple.
+     * @param from The tuple so far
+     * @param word A word with packed letters and the same length as the rest of the tuple
+     * @param into Overwritten with the extended tuple
+     * @return the extended tuple's score
+     */
+    double extend(Partial from, Word word, Partial into) {
+        into.copyFrom(from);
+        double score = from.score;
+        for (long remaining = word.letterMask(); remaining != 0; remaining &= remaining - 1) {
+            int letter = Long.numberOfTrailingZeros(remaining);
+            long bit = 1L << letter;
+            double added = 0;
+            for (int pos = 0; pos < length; pos++) {
+                if (word.letterIndex(pos) == letter && (into.positionMasks[pos] & bit) == 0) {
+                    into.positionMasks[pos] |= bit;
+                    added += pairScores[pos][letter];
+                }
+            }
+            int before = into.occurrences[letter];
+            int after = before + word.countIndex(letter);
+            //the letter's existing pairs lose the uniqueness bonus once it appears twice
+            score += (into.letterScores[letter] + added) * bonus(after) - into.letterScores[letter] * bonus(before);
+            into.letterScores[letter] += added;
+            into.occurrences[letter] = after;
+        }
+        into.score = score;
+        return score;
+    }
+
+    private double bonus(int occurrences) {
+        return occurrences < 2 ? uniqueBonus : 1.0;
+    }
+
+    /**
+     * Per-letter state of a partial tuple. Instances are reused by the search, one per depth.
+     */
+    static final class Partial {
+        private final int[] occurrences = new int[Alphabet.SIZE];
+        private final double[] letterScores = new double[Alphabet.SIZE]; //sum of pair scores for each letter's positions
+        private final long[] positionMasks;
+        private double score;
+
+        private Partial(int length) {
+            this.positionMasks = new long[length];
+        }
+
+        double score() {
+            return score;
+        }
+
+        private void copyFrom(Partial other) {
+            System.arraycopy(other.occurrences, 0, occurrences, 0, occurrences.length);
+            System.arraycopy(other.letterScores, 0, letterScores, 0, letterScores.length);
+            System.arraycopy(other.positionMasks, 0, positionMasks, 0, positionMasks.length);
+            score = other.score;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.appsoil.solvle.service;
+
+import com.appsoil.solvle.data.Word;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Branch and bound search for the highest scoring tuples of words. Tuples are built depth first from candidates
+ * sorted by their individual scores, with letter overlap checked against {@link Word#letterMask()} bitmasks. When the
+ * tuple score is subadditive (a word never adds more than its own score), a partial tuple can score at most its
+ * current score plus the best scores still available after it, so branches that can't beat the current top
+ * results are skipped along with every later sibling.
+ *
+ * Scores are extended one word at a time with a {@link TupleFreqScorer}, and the best tuples are kept as word indexes
+ * in a {@link TopTuples} heap. The first word of each tuple is split across fork-join tasks, which keep their own
+ * heaps and share the lowest score needed to make it into them.
+ */
+class TupleSearch {
+
+    //first word candidates handled by one task before splitting further
+    private static final int SPLIT_SIZE = 8;
+
+    private final Word[] words;
+    private final long[] masks;
+    private final double[] wordScores;
+    private final double[] prefixScores; //prefixScores[i] is the sum of the first i word scores
+    private final int[] allIndexes;
+    private final int tupleSize;
+    private final int topN;
+    private final boolean prune;
+    private final TupleFreqScorer scorer;
+    private final AtomicLong threshold = new AtomicLong(Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+    private final AtomicLong evaluated = new AtomicLong();
+
+    /**
+     * @param candidates Words that may be used, each with distinct packed letters
+     * @param prune      Whether scores are subadditive, so partial tuples can be bounded
+     */
+    TupleSearch(Collection<Word> candidates, TupleFreqScorer scorer, int tupleSize, int topN, boolean prune) {
+        Map<Word, Double> scores = new HashMap<>();
+        candidates.forEach(word -> scores.put(word, scorer.wordScore(word)));
+        this.words = candidates.stream()
+                .sorted(Comparator.comparingDouble((Word word) -> scores.get(word)).reversed().thenComparing(Comparator.naturalOrder()))
+                .toArray(Word[]::new);
+        this.masks = Arrays.stream(words).mapToLong(Word::letterMask).toArray();
+        this.wordScores = Arrays.stream(words).mapToDouble(scores::get).toArray();
+        this.prefixScores = new double[words.length + 1];
+        for (int i = 0; i < words.length; i++) {
+            prefixScores[i + 1] = prefixScores[i] + wordScores[i];
+        }
+        this.allIndexes = new int[words.length];
+        Arrays.setAll(allIndexes, i -> i);
+        this.tupleSize = tupleSize;
+        this.topN = topN;
+        this.prune = prune && Arrays.stream(prefixScores).allMatch(Double::isFinite);
+        this.scorer = scorer;
+    }
+
+    /**
+     * @return the top tuples and their scores, highest score first
+     */
+    Map<Set<Word>, Double> search() {
+        if (tupleSize < 1 || words.length < tupleSize) {
+            return Map.of();
+        }
+        TopTuples top = ForkJoinPool.commonPool().invoke(new FirstWords(0, words.length - tupleSize + 1));
+
+        Integer[] slots = new Integer[top.size()];
+        Arrays.setAll(slots, slot -> slot);
+        Arrays.sort(slots, Comparator.comparingDouble((Integer slot) -> top.score(slot)).reversed());
+        Map<Set<Word>, Double> results = new LinkedHashMap<>();
+        for (int slot : slots) {
+            Set<Word> tuple = new HashSet<>();
+            for (int i = 0; i < tupleSize; i++) {
+                tuple.add(words[top.wordIndex(slot, i)]);
+            }
+            results.put(tuple, top.score(slot));
+        }
+        return results;
+    }
+
+    /**
+     * @return how many complete tuples were scored by the last search
+     */
+    long evaluated() {
+        return evaluated.get();
+    }
+
+    private class FirstWords extends RecursiveTask<TopTuples> {
+        private final int start;
+        private final int end;
+
+        FirstWords(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected TopTuples compute() {
+            if (end - start > SPLIT_SIZE) {
+                int mid = (start + end) >>> 1;
+                FirstWords left = new FirstWords(start, mid);
+                left.fork();
+                TopTuples right = new FirstWords(mid, end).compute();
+                TopTuples merged = left.join().addAll(right);
+                if (merged.isFull()) {
+                    raiseThreshold(merged.min());
+                }
+                return merged;
+            }
+            Search search = new Search();
+            for (int i = start; i < end; i++) {
+                if (isBeaten(0, prefixScores, i, tupleSize)) {
+                    //candidates are sorted, so every later first word is beaten as well
+                    break;
+                }
+                search.add(0, i, words.length, 0, 0);
+            }
+            return search.top;
+        }
+    }
+
+    /**
+     * Depth first search state for one task, reused for every tuple it visits. Each depth keeps the candidates that
+     * are still compatible with the tuple so far, in score order, so the bound only counts words that could actually
+     * be added.
+     */
+    private class Search {
+        private final TopTuples top = new TopTuples(topN, tupleSize);
+        private final int[] tuple = new int[tupleSize];
+        private final TupleFreqScorer.Partial[] partials = new TupleFreqScorer.Partial[tupleSize + 1];
+        private final int[][] candidates = new int[tupleSize][];
+        private final double[][] candidatePrefixScores = new double[tupleSize][];
+
+        Search() {
+            Arrays.setAll(partials, depth -> scorer.empty());
+            candidates[0] = allIndexes;
+            candidatePrefixScores[0] = prefixScores;
+            for (int depth = 1; depth < tupleSize; depth++) {
+                candidates[depth] = new int[words.length];
+                candidatePrefixScores[depth] = new double[words.length + 1];
+            }
+        }
+
+        /**
+         * Puts a candidate at this depth of the tuple, then either records the tuple or fills in the rest from the
+         * candidates after it.
+         */
+        private void add(int depth, int position, int candidateCount, long used, long usedTwice) {
+            int index = candidates[depth][position];
+            tuple[depth] = index;
+            double score = scorer.extend(partials[depth], words[index], partials[depth + 1]);
+            if (depth + 1 == tupleSize) {
+                evaluated.incrementAndGet();
+                top.offer(score, tuple);
+                if (top.isFull()) {
+                    raiseThreshold(top.min());
+                }
+                return;
+            }
+            long mask = masks[index];
+            usedTwice |= used & mask;
+            used |= mask;
+            int remaining = tupleSize - depth - 1;
+            if (isBeaten(score, candidatePrefixScores[depth], position + 1, remaining)) {
+                return;
+            }
+
+            //letters may not repeat in the first four words, and may appear at most twice after that
+            long excluded = depth + 1 > 3 ? usedTwice : used;
+            int[] next = candidates[depth + 1];
+            double[] nextPrefixScores = candidatePrefixScores[depth + 1];
+            int count = 0;
+            for (int k = position + 1; k < candidateCount; k++) {
+                int candidate = candidates[depth][k];
+                if ((masks[candidate] & excluded) == 0) {
+                    next[count] = candidate;
+                    nextPrefixScores[count + 1] = nextPrefixScores[count] + wordScores[candidate];
+                    count++;
+                }
+            }
+            for (int k = 0; k <= count - remaining; k++) {
+                if (isBeaten(score, nextPrefixScores, k, remaining)) {
+                    //candidates are sorted, so every later one is beaten as well
+                    break;
+                }
+                add(depth + 1, k, count, used, usedTwice);
+            }
+        }
+    }
+
+    /**
+     * @return true if adding the best remaining candidates from this position to a partial tuple with this score
+     * can't make it into the top results
+     */
+    private boolean isBeaten(double score, double[] candidatePrefixScores, int position, int remaining) {
+        return prune && (position + remaining >= candidatePrefixScores.length
+                || score + candidatePrefixScores[position + remaining] - candidatePrefixScores[position] <= Double.longBitsToDouble(threshold.get()));
+    }
+
+    /**
+     * Every full heap's lowest score is a lower bound on the score needed to be in the overall top results.
+     */
+    private void raiseThreshold(double score) {
+        long current = threshold.get();
+        while (score > Double.longBitsToDouble(current) && !threshold.compareAndSet(current, Double.doubleToLongBits(score))) {
+            current = threshold.get();
+        }
+    }
+}
@@ -6,13 +6,16 @@ import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.time.Instant;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.DoubleAdder;
-import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 public class WordCalculationService {
@@ -31,10 +34,49 @@ public class WordCalculationService {
     private final double rutBreakMultiplier;
     private final int rutBreakThreshold;
     private final boolean hardMode;
+    private final FeedbackMatrix feedbackMatrix;
 
     private static final Set<Character> vowels = Set.of('a', 'e', 'i', 'o', 'u');
+    private static final long VOWEL_MASK = Alphabet.mask("aeiou");
+
+    //HARMONIC[n] is the nth harmonic number, for counts up to 32767, above the size of the largest dictionary (iceland, ~24k words)
+    private static final double[] HARMONIC = new double[1 << 15];
+
+    static {
+        for (int n = 1; n < HARMONIC.length; n++) {
+            HARMONIC[n] = HARMONIC[n - 1] + 1.0 / n;
+        }
+    }
+
+    //rough operation counts per item, for the execution planner
+    private static final long FILTER_OPS = 8;
+    private static final long MATRIX_LOOKUP_OPS = 2;
+    private static final long COMPUTED_CODE_OPS = 40;
+    private static final long PLAYOUT_OPS = 10_000;
+    //pool words ranked per worker before checking a partition deadline again
+    private static final int PARTITION_BATCH_PER_WORKER = 8;
+
+    private final ExecutionPlanner planner = ExecutionPlanner.common();
+    private final double[] vowelPenalties = new double[Alphabet.SIZE]; //multiplier for each letter, by alphabet index
+    private final PositionFactors[] positionFactors; //by word length
+
+    /**
+     * Multipliers for {@link #calculateFreqScoreByPosition} that only depend on the configuration, the word length
+     * and how many positions are known, precomputed for each number of known positions.
+     */
+    private record PositionFactors(double[] locationBonuses, double[] viableWordAdjustments, double uniqueBonus) {
+    }
 
     public WordCalculationService(WordCalculationConfig config) {
+        this(config, null);
+    }
+
+    /**
+     * @param config Scoring configuration
+     * @param feedbackMatrix Optional precomputed feedback patterns for the dictionary being analyzed. Codes for words
+     *                       that are not in the matrix (or all words, if null) are computed on the fly.
+     */
+    public WordCalculationService(WordCalculationConfig config, FeedbackMatrix feedbackMatrix) {
         this.rightLocationMultiplier = config.rightLocationMultiplier();
         this.uniquenessMultiplier = config.uniquenessMultiplier();
         this.useHarmonic = config.useHarmonic();
@@ -47,6 +89,115 @@ public class WordCalculationService {
         this.rutBreakMultiplier = config.rutBreakMultiplier();
         this.rutBreakThreshold = config.rutBreakThreshold();
         this.hardMode = config.hardMode();
+        this.feedbackMatrix = feedbackMatrix;
+
+        for (int letter = 0; letter < Alphabet.SIZE; letter++) {
+            vowelPenalties[letter] = (VOWEL_MASK & (1L << letter)) != 0 ? vowelAdjustment : 1.0;
+        }
+        this.positionFactors = new PositionFactors[WordRestrictions.NO_RESTRICTIONS.word().getLength() + 1];
+        Arrays.setAll(positionFactors, this::createPositionFactors);
+    }
+
+    private PositionFactors createPositionFactors(int length) {
+        double wordLength = length;
+        double[] locationBonuses = new double[length + 1];
+        double[] viableWordAdjustments = new double[length + 1];
+        for (int known = 0; known <= length; known++) {
+            double numKnownLetters = known;
+            //scale location bonus based on number of positions known
+            double locationAdjustment = 1 - ((numKnownLetters / wordLength) * locationAdjustmentScale);
+            locationBonuses[known] = 1 + (rightLocationMultiplier - 1) * locationAdjustment;
+            //scale viable word preference based on number of positions known
+            viableWordAdjustments[known] = (viableWordPreference - ((numKnownLetters * viableWordAdjustmentScale) / wordLength));
+        }
+        //scale unique bonus based on number of letters remaining
+        double uniqueAdjustment = 1 - ((1 - (wordLength / WordRestrictions.NO_RESTRICTIONS.word().getLength())) * uniqueAdjustmentScale);
+        return new PositionFactors(locationBonuses, viableWordAdjustments, 1 + (uniquenessMultiplier - 1) * uniqueAdjustment);
+    }
+
+    private PositionFactors positionFactors(int length) {
+        return length < positionFactors.length ? positionFactors[length] : createPositionFactors(length);
+    }
+
+    /**
+     * Every term {@link #calculateFreqScoreByPosition} adds for one batch of packed words of the same length, by
+     * whether the letter gets the uniqueness bonus, then position, then letter and compared position. Adding a word's
+     * terms in the same order gives the same score without recomputing them for every word.
+     *
+     * @param bounds bounds[i] is at least as much as positions i and later can add to any word's score, viable word
+     *               adjustment included, so words that can't reach the lowest score kept are dropped part way through
+     */
+    private record PositionTerms(int length, double[][][] terms, long requiredMask, double[] bounds, double viableWordAdjustment) {
+
+        //covers rounding differences between the bounds and the sums they bound
+        private static final double BOUND_SLACK = 1e-9;
+
+        void offer(TopScores top, Word word, int index, Set<Word> containedWords) {
+            double totalScore = 0.0;
+            for (int i = 0; i < length; i++) {
+                int letter = word.letterIndex(i);
+                boolean unique = word.countIndex(letter) < 2 && (requiredMask & (1L << letter)) == 0;
+                double[] letterTerms = terms[unique ? 1 : 0][i];
+                for (int j = letter * length; j < (letter + 1) * length; j++) {
+                    totalScore += letterTerms[j];
+                }
+                if (top.isFull() && totalScore + bounds[i + 1] + BOUND_SLACK < top.min()) {
+                    return;
+                }
+            }
+            if (totalScore > 0 && containedWords.contains(word)) {
+                totalScore += viableWordAdjustment;
+            }
+            top.offer(totalScore, word.getOrder(), index);
+        }
+    }
+
+    private PositionTerms createPositionTerms(int wordLength, CharacterCounts wordsWithCharacter, int containedWordCount, int maxScore,
+                                              WordRestrictions wordRestrictions, Map<Character, DoubleAdder> positionBonus) {
+        int numKnownLetters = wordRestrictions.letterPositions().size();
+        PositionFactors factors = positionFactors(wordLength);
+        double rightLocationBonus = numKnownLetters <= wordLength ? factors.locationBonuses()[numKnownLetters]
+                : 1 + (rightLocationMultiplier - 1) * (1 - (((double) numKnownLetters / wordLength) * locationAdjustmentScale));
+        double viableWordAdjustment = numKnownLetters <= wordLength ? factors.viableWordAdjustments()[numKnownLetters]
+                : (viableWordPreference - ((numKnownLetters * viableWordAdjustmentScale) / (double) wordLength));
+        double divisor = containedWordCount * maxScore * rightLocationMultiplier;
+        long requiredMask = 0;
+        for (char c : wordRestrictions.requiredLetters()) {
+            int index = Alphabet.indexOf(c);
+            if (index >= 0) {
+                requiredMask |= 1L << index;
+            }
+        }
+
+        double[][][] terms = new double[2][wordLength][Alphabet.SIZE * wordLength];
+        double[] bounds = new double[wordLength + 1];
+        bounds[wordLength] = Math.max(viableWordAdjustment, 0);
+        double[] positionMax = new double[wordLength];
+        Arrays.fill(positionMax, Double.NEGATIVE_INFINITY);
+        for (int unique = 0; unique < 2; unique++) {
+            double uniqueBonus = unique == 1 ? factors.uniqueBonus() : 1;
+            for (int i = 0; i < wordLength; i++) {
+                for (int letter = 0; letter < Alphabet.SIZE; letter++) {
+                    char c = Alphabet.letterAt(letter);
+                    double vowelPenalty = vowelPenalties[letter];
+                    double rutBreakerBonus = positionBonus.isEmpty() || !positionBonus.containsKey(c) ? 0.0 : positionBonus.get(c).doubleValue();
+                    double sum = 0.0;
+                    for (int j = 0; j < wordLength; j++) {
+                        double locationBonus = (i == j) ? rightLocationBonus : 1;
+                        int count = wordsWithCharacter.countIndex(j, letter);
+                        double numerator = count > 0 ? harmonic(count) + rutBreakerBonus : 0;
+                        double term = ((numerator * locationBonus * uniqueBonus * vowelPenalty)) / divisor;
+                        terms[unique][i][letter * wordLength + j] = term;
+                        sum += term;
+                    }
+                    positionMax[i] = Math.max(positionMax[i], sum);
+                }
+            }
+        }
+        for (int i = wordLength - 1; i >= 0; i--) {
+            bounds[i] = bounds[i + 1] + positionMax[i];
+        }
+        return new PositionTerms(wordLength, terms, requiredMask, bounds, viableWordAdjustment);
     }
 
     /**
@@ -56,9 +207,14 @@ public class WordCalculationService {
      * @return
      */
     public Set<Word> findMatchingWords(Set<Word> wordSet, WordRestrictions wordRestrictions) {
-        return wordSet.stream()
-                .filter(w -> isValidWord(w, wordRestrictions))
+        PackedRestrictions packedRestrictions = PackedRestrictions.of(wordRestrictions);
+        ExecutionPlanner.Plan plan = planner.plan(ExecutionPlanner.Phase.FILTER, wordSet.size(), wordSet.size() * FILTER_OPS, true);
+        long start = System.nanoTime();
+        Set<Word> matches = plan.apply(wordSet.stream())
+                .filter(w -> w.hasPackedLetters() ? packedRestrictions.matches(w) : isValidWord(w, wordRestrictions))
                 .collect(Collectors.toSet());
+        planner.finished(plan, start);
+        return matches;
     }
 
     /**
@@ -68,10 +224,15 @@ public class WordCalculationService {
      * @return
      */
     public boolean isValidWord(Word word, WordRestrictions wordRestrictions) {
+        if (word.hasPackedLetters()) {
+            return PackedRestrictions.of(wordRestrictions).matches(word);
+        }
 
         //if required letters are missing
-        if (!word.letters().keySet().containsAll(wordRestrictions.requiredLetters())) {
-            return false;
+        for (char c : wordRestrictions.requiredLetters()) {
+            if (!word.contains(c)) {
+                return false;
+            }
         }
 
         //check if any required positions are missing
@@ -90,13 +251,19 @@ public class WordCalculationService {
 
         //check minimum letter frequencies
         for (Map.Entry<Character, Integer> entry : wordRestrictions.minimumLetterFrequencies().entrySet()) {
-            if (word.letters().getOrDefault(entry.getKey(), 0) < entry.getValue()) {
+            if (word.count(entry.getKey()) < entry.getValue()) {
                 return false;
             }
-        }        
+        }
 
         //then check if all letters in this word are available in the restrictions
-        return wordRestrictions.word().letters().keySet().containsAll(word.letters().keySet());
+        String available = wordRestrictions.word().word();
+        for (int i = 0; i < word.getLength(); i++) {
+            if (available.indexOf(word.word().charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -106,14 +273,21 @@ public class WordCalculationService {
      * @param words
      * @return
      */
-    public Map<Character, LongAdder> calculateCharacterCounts(Set<Word> words) {
-        Map<Character, LongAdder> counts = new ConcurrentHashMap<>(26);
-        words.parallelStream().forEach(word -> {
-            word.letters().forEach((key, value) -> {
-                counts.computeIfAbsent(key, k -> new LongAdder()).increment();
-            });
-        });
-        return counts;
+    public CharacterCounts calculateCharacterCounts(Set<Word> words) {
+        ExecutionPlanner.Plan plan = planner.plan(ExecutionPlanner.Phase.COUNT, words.size(), words.size() * (long) maxLength(words), false);
+        long start = System.nanoTime();
+        //each thread fills its own table, and the tables are summed as the threads finish
+        CharacterCounts characterCounts = plan.apply(words.stream()).collect(() -> new CharacterCounts(1), (counts, word) -> {
+            String w = word.word();
+            for (int i = 0; i < w.length(); i++) {
+                //only count the first occurrence of each letter
+                if (w.indexOf(w.charAt(i)) == i) {
+                    counts.increment(0, w.charAt(i));
+                }
+            }
+        }, CharacterCounts::add);
+        planner.finished(plan, start);
+        return characterCounts;
     }
 
     /**
@@ -123,15 +297,21 @@ public class WordCalculationService {
      * @param words
      * @return
      */
-    public Map<Integer, Map<Character, LongAdder>> calculateCharacterCountsByPosition(Set<Word> words) {
-        Map<Integer, Map<Character, LongAdder>> countsByPos = new ConcurrentHashMap<>();
-        words.parallelStream().forEach(word -> {
-            for(int i = 0; i < word.word().length(); i++) {
-                countsByPos.computeIfAbsent((i+1), k -> new ConcurrentHashMap<>(26))
-                        .computeIfAbsent(word.word().charAt(i), k -> new LongAdder()).increment();
+    public CharacterCounts calculateCharacterCountsByPosition(Set<Word> words) {
+        int positions = maxLength(words);
+        ExecutionPlanner.Plan plan = planner.plan(ExecutionPlanner.Phase.COUNT, words.size(), words.size() * (long) positions, false);
+        long start = System.nanoTime();
+        CharacterCounts characterCounts = plan.apply(words.stream()).collect(() -> new CharacterCounts(positions), (counts, word) -> {
+            for(int i = 0; i < word.getLength(); i++) {
+                counts.increment(i, word.word().charAt(i));
             }
-        });
-        return countsByPos;
+        }, CharacterCounts::add);
+        planner.finished(plan, start);
+        return characterCounts;
+    }
+
+    private static int maxLength(Set<Word> words) {
+        return words.stream().mapToInt(Word::getLength).max().orElse(0);
     }
 
     /**
@@ -150,27 +330,65 @@ public class WordCalculationService {
      * @param sizeLimit Maximum number of results to return
      * @return
      */
-    public Set<WordFrequencyScore> calculateViableWords(Set<Word> words, Map<Character, LongAdder> characterCounts, int viableWordsCount, int requiredCharCount, int sizeLimit, Map<Character, DoubleAdder> positionBonus) {
-        return words.parallelStream()
-                .map(word -> new WordFrequencyScore(word.getOrder(), word.word(),
-                        calculateFreqScore(word, characterCounts, viableWordsCount, word.getLength() - requiredCharCount, positionBonus), null))
-                .sorted()
-                .limit(sizeLimit)
-                .collect(Collectors.toCollection(() -> new TreeSet<>()));
+    public Set<WordFrequencyScore> calculateViableWords(Set<Word> words, CharacterCounts characterCounts, int viableWordsCount, int requiredCharCount, int sizeLimit, Map<Character, DoubleAdder> positionBonus) {
+        Word[] candidates = words.toArray(Word[]::new);
+        int length = candidates.length > 0 ? candidates[0].getLength() : 0;
+        int maxScore = length - requiredCharCount;
+        //every word of the same length scores the same for a given letter, so look letter scores up instead of recomputing them
+        double[] letterScores = viableWordsCount < 1 || maxScore < 1 ? null : new double[Alphabet.SIZE];
+        if (letterScores != null) {
+            for (int letter = 0; letter < Alphabet.SIZE; letter++) {
+                letterScores[letter] = calculateLetterFreqScore(Alphabet.letterAt(letter), characterCounts.totalIndex(letter), viableWordsCount, maxScore, positionBonus);
+            }
+        }
+        ExecutionPlanner.Plan plan = planner.plan(ExecutionPlanner.Phase.SCORE, candidates.length, (long) candidates.length * length, letterScores != null);
+        long start = System.nanoTime();
+        Set<WordFrequencyScore> scores = plan.apply(IntStream.range(0, candidates.length))
+                .collect(() -> new TopScores(Math.min(sizeLimit, candidates.length)), (top, i) -> {
+                    Word word = candidates[i];
+                    double score;
+                    if (letterScores != null && word.hasPackedLetters() && word.getLength() == length) {
+                        //same letter order as calculateFreqScore, so the sums are identical
+                        score = 0.0;
+                        for (long remaining = word.letterMask(); remaining != 0; remaining &= remaining - 1) {
+                            score += letterScores[Long.numberOfTrailingZeros(remaining)];
+                        }
+                    } else {
+                        score = calculateFreqScore(word, characterCounts, viableWordsCount, word.getLength() - requiredCharCount, positionBonus);
+                    }
+                    top.offer(score, word.getOrder(), i);
+                }, TopScores::addAll)
+                .toWordFrequencyScores(candidates);
+        planner.finished(plan, start);
+        return scores;
     }
 
-    public Set<WordFrequencyScore> calculateViableWordsByPosition(Set<Word> words, Map<Integer, Map<Character, LongAdder>> characterCounts, Set<Word> containedWords,
+    public Set<WordFrequencyScore> calculateViableWordsByPosition(Set<Word> words, CharacterCounts characterCounts, Set<Word> containedWords,
                                                                   int requiredCharCount, int sizeLimit, WordRestrictions wordRestrictions, Map<Character, DoubleAdder> positionBonus) {
-        return words.parallelStream()
-                .map(word -> new WordFrequencyScore(word.getOrder(), word.word(),
-                        calculateFreqScoreByPosition(word, characterCounts, containedWords, word.getLength() - requiredCharCount, wordRestrictions, positionBonus), null))
-                .sorted()
-                .limit(sizeLimit)
-                .collect(Collectors.toCollection(() -> new TreeSet<>()));
+        Word[] candidates = words.toArray(Word[]::new);
+        PositionTerms terms = candidates.length > 0 && !containedWords.isEmpty() && candidates[0].getLength() - requiredCharCount >= 1
+                ? createPositionTerms(candidates[0].getLength(), characterCounts, containedWords.size(), candidates[0].getLength() - requiredCharCount, wordRestrictions, positionBonus)
+                : null;
+        int length = candidates.length > 0 ? candidates[0].getLength() : 0;
+        ExecutionPlanner.Plan plan = planner.plan(ExecutionPlanner.Phase.SCORE, candidates.length, (long) candidates.length * length * length, terms != null);
+        long start = System.nanoTime();
+        Set<WordFrequencyScore> scores = plan.apply(IntStream.range(0, candidates.length))
+                .collect(() -> new TopScores(Math.min(sizeLimit, candidates.length)), (top, i) -> {
+                    Word word = candidates[i];
+                    if (terms != null && word.hasPackedLetters() && word.getLength() == terms.length()) {
+                        terms.offer(top, word, i, containedWords);
+                    } else {
+                        top.offer(calculateFreqScoreByPosition(word, characterCounts, containedWords, word.getLength() - requiredCharCount, wordRestrictions, positionBonus),
+                                word.getOrder(), i);
+                    }
+                }, TopScores::addAll)
+                .toWordFrequencyScores(candidates);
+        planner.finished(plan, start);
+        return scores;
     }
 
     /**
-     * Identical to {@link #calculateViableWords(Set, Map, int, int, int, Map)} but with the addition of a requiredLetters set.
+     * Identical to {@link #calculateViableWords(Set, CharacterCounts, int, int, int, Map)} but with the addition of a requiredLetters set.
      * This set refers to letters that are required in viable words, and they will be excluded from the frequency
      * score calculation for fishing words.
      *
@@ -187,51 +405,48 @@ public class WordCalculationService {
      * @param requiredLetters
      * @return
      */
-    public Set<WordFrequencyScore> calculateFishingWords(Set<Word> allWords, Map<Character, LongAdder> characterCounts, int viableWordsCount, int sizeLimit, Set<Character> requiredLetters, Map<Character, DoubleAdder> positionBonus) {
+    public Set<WordFrequencyScore> calculateFishingWords(Set<Word> allWords, CharacterCounts characterCounts, int viableWordsCount, int sizeLimit, Set<Character> requiredLetters, Map<Character, DoubleAdder> positionBonus) {
         return calculateViableWords(allWords,
                 removeRequiredLettersFromCounts(characterCounts, requiredLetters),
                 viableWordsCount, requiredLetters.size(), sizeLimit, positionBonus);
     }
 
-    public Set<WordFrequencyScore> calculateFishingWordsByPosition(Set<Word> allWords, Map<Integer, Map<Character, LongAdder>> characterCounts, Set<Word> containedWords, int sizeLimit, WordRestrictions wordRestrictions, Map<Character, DoubleAdder> positionBonus) {
+    public Set<WordFrequencyScore> calculateFishingWordsByPosition(Set<Word> allWords, CharacterCounts characterCounts, Set<Word> containedWords, int sizeLimit, WordRestrictions wordRestrictions, Map<Character, DoubleAdder> positionBonus) {
         return calculateViableWordsByPosition(allWords,
                 removeRequiredLettersFromCountsByPosition(characterCounts, wordRestrictions),
                 containedWords, wordRestrictions.letterPositions().keySet().size(), sizeLimit, wordRestrictions, positionBonus);
     }
 
     /**
-     * Returns a new map that matches the provided map, but any entries for one of the required letters has been removed.
+     * Returns a copy of the provided counts with the counts for all the required letters removed.
      * @param characterCounts
      * @param requiredLetters
      * @return
      */
-    public Map<Character, LongAdder> removeRequiredLettersFromCounts(Map<Character, LongAdder> characterCounts, Set<Character> requiredLetters) {
-        return characterCounts.entrySet().stream()
-                .filter(entrySet -> !requiredLetters.contains(entrySet.getKey()))
-                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (x, y) -> y, ConcurrentHashMap::new));
-    }
-
-    public Map<Integer, Map<Character, LongAdder>> removeRequiredLettersFromCountsByPosition(Map<Integer, Map<Character, LongAdder>> characterCounts, WordRestrictions wordRestrictions) {
-        Map<Integer, Map<Character, LongAdder>> newMap = new ConcurrentHashMap<>();
-        characterCounts.forEach((pos, v) -> {
-            if((wordRestrictions.letterPositions().containsKey(pos)
-                    && v.containsKey(wordRestrictions.letterPositions().get(pos)))
-                    || v.size() == 1) //if there's only 1 option for this position, it is implicitly "known"
+    public CharacterCounts removeRequiredLettersFromCounts(CharacterCounts characterCounts, Set<Character> requiredLetters) {
+        CharacterCounts newCounts = characterCounts.copy();
+        requiredLetters.forEach(newCounts::remove);
+        return newCounts;
+    }
+
+    public CharacterCounts removeRequiredLettersFromCountsByPosition(CharacterCounts characterCounts, WordRestrictions wordRestrictions) {
+        CharacterCounts newCounts = characterCounts.copy();
+        for (int i = 0; i < newCounts.positions(); i++) {
+            Character known = wordRestrictions.letterPositions().get(i + 1);
+            Map<Character, Integer> letters = newCounts.letters(i);
+            if((known != null && letters.containsKey(known))
+                    || letters.size() == 1) //if there's only 1 option for this position, it is implicitly "known"
             {
-                newMap.put(pos, new ConcurrentHashMap<>());
-            } else if (v.size() == 2) {
+                newCounts.clear(i);
+            } else if (letters.size() == 2) {
                 //if there are 2 options for this position, just pick the least common and infer the other
-                Map<Character, LongAdder> reducedMap = new ConcurrentHashMap<>();
-                var entry = v.entrySet().stream()
-                        .sorted(Comparator.comparingInt(es -> es.getValue().intValue()))
-                        .findFirst().get();
-                reducedMap.put(entry.getKey(), entry.getValue());
-                newMap.put(pos, reducedMap);
-            } else {
-                newMap.put(pos, v);
+                char leastCommon = letters.entrySet().stream()
+                        .min(Comparator.comparingInt(Map.Entry::getValue))
+                        .get().getKey();
+                newCounts.retain(i, leastCommon);
             }
-        });
-        return newMap;
+        }
+        return newCounts;
     }
 
 
@@ -245,21 +460,73 @@ public class WordCalculationService {
      * @param maxScore The number of letters available for scoring. For example, if we already know 2 letters of a 5-letter word, the max score is 3
      * @return
      */
-    protected Double calculateFreqScore(Word word, Map<Character, LongAdder> wordsWithCharacter, int totalWords, int maxScore, Map<Character, DoubleAdder> positionBonus) {
+    protected Double calculateFreqScore(Word word, CharacterCounts wordsWithCharacter, int totalWords, int maxScore, Map<Character, DoubleAdder> positionBonus) {
         if(totalWords < 1 || maxScore < 1) {
             return 0.0;
         }
 
-        return word.letters().entrySet().stream()
-                .mapToDouble(c -> {
-                    double rutBreakerBonus = positionBonus.containsKey(c) ? positionBonus.get(c).doubleValue() : 0.0;
-                    double numerator =  (wordsWithCharacter.containsKey(c.getKey()) ? wordsWithCharacter.get(c.getKey()).doubleValue() : 0) + rutBreakerBonus;
-                    return numerator / ((double)totalWords * maxScore);
-                }).sum();
+        //sum in a fixed letter order so that anagrams produce identical scores
+        double score = 0.0;
+        if (word.hasPackedLetters()) {
+            for (long remaining = word.letterMask(); remaining != 0; remaining &= remaining - 1) {
+                int index = Long.numberOfTrailingZeros(remaining);
+                score += calculateLetterFreqScore(Alphabet.letterAt(index), wordsWithCharacter.totalIndex(index), totalWords, maxScore, positionBonus);
+            }
+        } else {
+            char[] letters = word.word().toCharArray();
+            Arrays.sort(letters);
+            for (int i = 0; i < letters.length; i++) {
+                if (i == 0 || letters[i] != letters[i - 1]) {
+                    score += calculateLetterFreqScore(letters[i], wordsWithCharacter.total(letters[i]), totalWords, maxScore, positionBonus);
+                }
+            }
+        }
+        return score;
+    }
+
+    private static double calculateLetterFreqScore(char c, int wordsWithCharacter, int totalWords, int maxScore, Map<Character, DoubleAdder> positionBonus) {
+        double rutBreakerBonus = positionBonus.containsKey(c) ? positionBonus.get(c).doubleValue() : 0.0;
+        double numerator =  wordsWithCharacter + rutBreakerBonus;
+        return numerator / ((double)totalWords * maxScore);
+    }
+
+    /**
+     * @return true if adding a word to a tuple never raises {@link #calculateTupleFreqScoreByPosition} by more than
+     * that word's score on its own. This holds when every letter contributes a non-negative amount and repeating a
+     * letter can only remove its uniqueness bonus, and lets tuple searches bound the score of unfinished tuples.
+     */
+    protected boolean isTupleScoreSubadditive(int len) {
+        double maxLength = WordRestrictions.NO_RESTRICTIONS.word().getLength();
+        double uniqueAdjustment = 1 - ((1 - ((double) len / maxLength)) * uniqueAdjustmentScale);
+        return 1 + (uniquenessMultiplier - 1) * uniqueAdjustment >= 1 && rightLocationMultiplier > 0 && vowelAdjustment >= 0;
+    }
+
+    /**
+     * Precomputes {@link #calculateTupleFreqScoreByPosition} into per (position, letter) tables, so that tuples of
+     * packed words can be scored one word at a time.
+     */
+    TupleFreqScorer tupleFreqScorer(CharacterCounts wordsWithCharacter, int containedWords, int len) {
+        double maxLength = WordRestrictions.NO_RESTRICTIONS.word().getLength();
+        double uniqueAdjustment = 1 - ((1 - ((double) len / maxLength)) * uniqueAdjustmentScale);
+        double finalFactor = 1.0 / (containedWords * len * rightLocationMultiplier);
+
+        double[][] pairScores = new double[len][Alphabet.SIZE];
+        for (int letter = 0; letter < Alphabet.SIZE; letter++) {
+            double vowelPenalty = vowelPenalties[letter];
+            for (int i = 0; i < len; i++) {
+                double score = 0;
+                for (int j = 0; j < len; j++) {
+                    double locationBonus = (i == j) ? (1 + (rightLocationMultiplier - 1)) : 1.0;
+                    score += wordsWithCharacter.countIndex(j, letter) * locationBonus * vowelPenalty * finalFactor;
+                }
+                pairScores[i][letter] = score;
+            }
+        }
+        return new TupleFreqScorer(pairScores, 1 + (uniquenessMultiplier - 1) * uniqueAdjustment);
     }
 
     protected double calculateTupleFreqScoreByPosition(Set<Word> tuple,
-                                                       Map<Integer, Map<Character, LongAdder>> wordsWithCharacter,
+                                                       CharacterCounts wordsWithCharacter,
                                                        Set<Word> containedWords, int len) {
         // Initialize a list to hold the set of characters at each position.
         List<Set<Character>> charPositions = new ArrayList<>(len);
@@ -291,13 +558,6 @@ public class WordCalculationService {
             vowelPenaltyMap.put(c, vowels.contains(c) ? vowelAdjustment : 1.0);
         }
 
-        // Precompute the maps for each letter position.
-        @SuppressWarnings("unchecked")
-        Map<Character, LongAdder>[] posCharMaps = new Map[len];
-        for (int j = 0; j < len; j++) {
-            posCharMaps[j] = wordsWithCharacter.get(j + 1);
-        }
-
         // Precompute constant factor to normalize the score.
         double finalFactor = 1.0 / (containedWords.size() * len * rightLocationMultiplier);
         double totalScore = 0.0;
@@ -311,9 +571,8 @@ public class WordCalculationService {
                 for (int j = 0; j < len; j++) {
                     // Calculate location bonus.
                     double locationBonus = (i == j) ? (1 + (rightLocationMultiplier - 1)) : 1.0;
-                    Map<Character, LongAdder> posMap = posCharMaps[j];
                     // Get count for letter c in position j.
-                    long count = posMap.containsKey(c) ? posMap.get(c).longValue() : 0L;
+                    long count = wordsWithCharacter.count(j, c);
                     totalScore += count * locationBonus * bonus * finalFactor;
                 }
             }
@@ -327,44 +586,55 @@ public class WordCalculationService {
      * positions in every word in the set. Values greater than 1.0 may be returned as a result of bias multipliers.
      * @return
      */
-    protected Double calculateFreqScoreByPosition(Word word, Map<Integer, Map<Character, LongAdder>> wordsWithCharacter,
+    protected Double calculateFreqScoreByPosition(Word word, CharacterCounts wordsWithCharacter,
                                                   Set<Word> containedWords, int maxScore, WordRestrictions wordRestrictions, Map<Character, DoubleAdder> positionBonus) {
         if(containedWords.size() < 1 || maxScore < 1) {
             return 0.0;
         }
 
-        double numKnownLetters = wordRestrictions.letterPositions().keySet().size();
-        double wordLength = word.getLength();
-
-
-        //scale location bonus based on number of positions known
-        double locationAdjustment = 1 - ((numKnownLetters / wordLength) * locationAdjustmentScale);
-
-        //scale unique bonus based on number of letters remaining
-        double uniqueAdjustment = 1 - ((1 - (wordLength / WordRestrictions.NO_RESTRICTIONS.word().getLength())) * uniqueAdjustmentScale);
-
-        //scale viable word preference based on number of positions known
-        double viableWordAdjustment = (viableWordPreference - ((numKnownLetters * viableWordAdjustmentScale)/wordLength));
+        int numKnownLetters = wordRestrictions.letterPositions().size();
+        int wordLength = word.getLength();
+        PositionFactors factors = positionFactors(wordLength);
+        double rightLocationBonus = numKnownLetters <= wordLength ? factors.locationBonuses()[numKnownLetters]
+                : 1 + (rightLocationMultiplier - 1) * (1 - (((double) numKnownLetters / wordLength) * locationAdjustmentScale));
+        double divisor = containedWords.size() * maxScore * rightLocationMultiplier; //divide by max score * bonuses to normalize scores closer to 100%
+        long requiredMask = 0;
+        for (char c : wordRestrictions.requiredLetters()) {
+            int index = Alphabet.indexOf(c);
+            if (index >= 0) {
+                requiredMask |= 1L << index;
+            }
+        }
 
         double totalScore = 0.0;
 
         // for each position in this word (i), check to see how many points it scores based on letters in each position across all words (j)
-        for(int i = 0; i < word.word().length(); i++) {
+        for(int i = 0; i < wordLength; i++) {
             char c = word.word().charAt(i);
-            double vowelPenalty = vowels.contains(c) ? vowelAdjustment : 1.0;
-            for(int j = 0; j < word.word().length(); j++) {
-                double locationBonus = (i == j) ? 1 + (rightLocationMultiplier-1)*locationAdjustment : 1;
-                double uniqueBonus = (word.letters().get(c) < 2) && !wordRestrictions.requiredLetters().contains(c) ? 1 + (uniquenessMultiplier-1)*uniqueAdjustment : 1;
-                double rutBreakerBonus = positionBonus.containsKey(c) ? positionBonus.get(c).doubleValue() : 0.0;
-                double numerator = wordsWithCharacter.get(j+1).containsKey(c) ? harmonic(wordsWithCharacter.get(j+1).get(c).intValue()) + rutBreakerBonus: 0;
-
-                totalScore += ((numerator * locationBonus * uniqueBonus * vowelPenalty))
-                         / (containedWords.size() * maxScore * rightLocationMultiplier); //divide by max score * bonuses to normalize scores closer to 100%
+            int index = word.hasPackedLetters() ? word.letterIndex(i) : -1;
+            double vowelPenalty;
+            boolean unique;
+            if (index >= 0) {
+                vowelPenalty = vowelPenalties[index];
+                unique = word.countIndex(index) < 2 && (requiredMask & (1L << index)) == 0;
+            } else {
+                vowelPenalty = vowels.contains(c) ? vowelAdjustment : 1.0;
+                unique = word.count(c) < 2 && !wordRestrictions.requiredLetters().contains(c);
+            }
+            double uniqueBonus = unique ? factors.uniqueBonus() : 1;
+            double rutBreakerBonus = positionBonus.isEmpty() || !positionBonus.containsKey(c) ? 0.0 : positionBonus.get(c).doubleValue();
+            for(int j = 0; j < wordLength; j++) {
+                double locationBonus = (i == j) ? rightLocationBonus : 1;
+                int count = index >= 0 ? wordsWithCharacter.countIndex(j, index) : wordsWithCharacter.count(j, c);
+                double numerator = count > 0 ? harmonic(count) + rutBreakerBonus: 0;
+
+                totalScore += ((numerator * locationBonus * uniqueBonus * vowelPenalty)) / divisor;
             }
         }
 
         if(totalScore > 0 && containedWords.contains(word)) {
-            totalScore += viableWordAdjustment ; //tiebreaker toward potential solutions
+            totalScore += numKnownLetters <= wordLength ? factors.viableWordAdjustments()[numKnownLetters]
+                    : (viableWordPreference - ((numKnownLetters * viableWordAdjustmentScale) / (double) wordLength)); //tiebreaker toward potential solutions
         }
 
         return totalScore;
@@ -393,6 +663,59 @@ public class WordCalculationService {
         }
     }
 
+    /**
+     * Same as {@link #calculateRemainingWords(WordRestrictions, Set, Set, Set)}, but ranks the pool no matter how many
+     * contained words there are, stopping once the deadline has passed. Pool words are ranked in batches, best frequency
+     * scores first, so the words most likely to partition well are the ones ranked when time runs out.
+     *
+     * @param deadline Words that have not been ranked by this time are left out
+     */
+    public PartitionRanking calculateRemainingWords(WordRestrictions wordRestrictions, Set<Word> containedWords, Set<WordFrequencyScore> wordFrequencyScores,
+                                                   Set<WordFrequencyScore> fishingWords, Instant deadline) {
+        List<Word> pool = prioritizeWordPool(wordFrequencyScores, fishingWords);
+        if (containedWords.size() <= 2) {
+            return new PartitionRanking(wordsByRemainingGuesses(wordRestrictions, containedWords, new HashSet<>(pool)), pool.size(), pool.size());
+        }
+
+        boolean indexed = feedbackMatrix != null;
+        int batchSize = planner.workers() * PARTITION_BATCH_PER_WORKER;
+        Set<WordFrequencyScore> scores = new TreeSet<>();
+        int evaluated = 0;
+        while (evaluated < pool.size() && Instant.now().isBefore(deadline)) {
+            List<Word> batch = pool.subList(evaluated, Math.min(evaluated + batchSize, pool.size()));
+            ExecutionPlanner.Plan plan = planner.plan(ExecutionPlanner.Phase.PARTITION, batch.size(),
+                    (long) batch.size() * containedWords.size() * (indexed ? MATRIX_LOOKUP_OPS : COMPUTED_CODE_OPS), indexed);
+            long start = System.nanoTime();
+            scores.addAll(plan.apply(batch.stream())
+                    .map(word -> partitionScore(wordRestrictions, containedWords, word, getPartitionStatsForWord(containedWords, word)))
+                    .toList());
+            planner.finished(plan, start);
+            evaluated += batch.size();
+        }
+        if (evaluated < pool.size()) {
+            log.info("Partition deadline reached after ranking {}/{} words for {} solutions", evaluated, pool.size(), containedWords.size());
+        }
+        return new PartitionRanking(scores, evaluated, pool.size());
+    }
+
+    /**
+     * @return the words from both lists, alternating between them in score order, without duplicates
+     */
+    private static List<Word> prioritizeWordPool(Set<WordFrequencyScore> viable, Set<WordFrequencyScore> fishing) {
+        Set<Word> pool = new LinkedHashSet<>();
+        Iterator<WordFrequencyScore> viableScores = viable.iterator();
+        Iterator<WordFrequencyScore> fishingScores = fishing.iterator();
+        while (viableScores.hasNext() || fishingScores.hasNext()) {
+            for (Iterator<WordFrequencyScore> scores : List.of(viableScores, fishingScores)) {
+                if (scores.hasNext()) {
+                    WordFrequencyScore score = scores.next();
+                    pool.add(new Word(score.word(), score.naturalOrdering()));
+                }
+            }
+        }
+        return new ArrayList<>(pool);
+    }
+
     public Set<Word> mergeWordPools(Set<WordFrequencyScore> viable, Set<WordFrequencyScore> fishing) {
         //get a pool of words taken from the top fishing and valid list
         return Stream.of(viable, fishing)
@@ -419,66 +742,207 @@ public class WordCalculationService {
         Set<WordFrequencyScore> scores = new TreeSet<>();
         Map<Word, PartitionStats> statSummary = new ConcurrentHashMap<>();
 
+        boolean indexed = feedbackMatrix != null;
+        ExecutionPlanner.Plan plan = planner.plan(ExecutionPlanner.Phase.PARTITION, wordPool.size(),
+                (long) wordPool.size() * containedWords.size() * (indexed ? MATRIX_LOOKUP_OPS : COMPUTED_CODE_OPS), indexed);
+        long start = System.nanoTime();
         //for each word in the pool, create a new wordRequirements as if that word had been picked for each solution
         //  then calculate how many remaining words are left and average the results
-        wordPool.parallelStream().forEach(word -> {
-            PartitionStats stats = getPartitionStatsForWord(startingRestrictions, containedWords, word);
+        plan.apply(wordPool.stream()).forEach(word -> {
+            PartitionStats stats = getPartitionStatsForWord(containedWords, word);
             if(stats != null ) {
                 statSummary.put(word, stats);
             }
         });
+        planner.finished(plan, start);
 
-        statSummary.forEach((word, partitionStats) ->
-                scores.add(new WordFrequencyScore(word.getOrder(), word.word(),
-                        ((1.0 - (partitionStats.wordsRemaining() / containedWords.size()))
-                                + (containedWords.contains(word) ? (viableWordPreference / (1 + startingRestrictions.letterPositions().keySet().size() * viableWordAdjustmentScale)) : 0)),
-                        partitionStats))); // add tiny bonus to viable words so they are prioritized
+        statSummary.forEach((word, partitionStats) -> scores.add(partitionScore(startingRestrictions, containedWords, word, partitionStats)));
         return scores;
     }
 
+    private WordFrequencyScore partitionScore(WordRestrictions startingRestrictions, Set<Word> containedWords, Word word, PartitionStats partitionStats) {
+        return new WordFrequencyScore(word.getOrder(), word.word(),
+                ((1.0 - (partitionStats.wordsRemaining() / containedWords.size()))
+                        + (containedWords.contains(word) ? (viableWordPreference / (1 + startingRestrictions.letterPositions().keySet().size() * viableWordAdjustmentScale)) : 0)),
+                partitionStats); // add tiny bonus to viable words so they are prioritized
+    }
+
     /**
      * Calculate how many words will remain in the word pool on average if a given word is selected
-     * @param startingRestrictions The restrictions that were used to generate the current set of contained words
      * @param containedWords The currently available pool of valid solutions
      * @param word The word to be evaluated
      * @return A stats object populated with the counts of all the potential new words list
      */
-    public PartitionStats getPartitionStatsForWord(WordRestrictions startingRestrictions, Set<Word> containedWords, Word word) {
-        //find all unique sets of restrictions and count how many words they apply to
-        Map<WordRestrictions, Integer> groups = new HashMap<>();
+    public PartitionStats getPartitionStatsForWord(Set<Word> containedWords, Word word) {
+        //every solution that produces the same feedback pattern for this guess ends up in the same group
+        int[] counts = new int[FeedbackMatrix.patternCount(word.getLength())];
+        Map<Integer, Set<Word>> members = hardMode ? new HashMap<>() : null;
+        int guessIndex = feedbackMatrix == null ? -1 : feedbackMatrix.guessIndex(word);
         for(Word solution : containedWords) {
-            groups.merge(WordRestrictions.generateRestrictions(solution, word, startingRestrictions), 1, Integer::sum);
+            int code = getFeedbackCode(word, guessIndex, solution);
+            counts[code]++;
+            if(members != null) {
+                members.computeIfAbsent(code, k -> new HashSet<>()).add(solution);
+            }
         }
-        return getPartitionStats(groups, containedWords);
+        return getPartitionStats(counts, code -> members.get(code), containedWords.size());
     }
 
-    public PartitionStats getPartitionStatsForTuple(WordRestrictions startingRestrictions, Set<Word> containedWords, Set<Word> tuple) {
-        Map<WordRestrictions, Integer> groups = new HashMap<>();
-        for (Word solution : containedWords) {
-            WordRestrictions effective = startingRestrictions;
-            // Apply each guess in the tuple in iteration order.
-            for (Word guess : tuple) {
-                effective = WordRestrictions.generateRestrictions(solution, guess, effective);
+    public PartitionStats getPartitionStatsForTuple(Set<Word> containedWords, Set<Word> tuple) {
+        Word[] solutions = containedWords.toArray(new Word[0]);
+        long[] keys = getTupleKeys(solutions, tuple);
+
+        //sort the keys so that each group is a run of equal keys
+        long[] sortedKeys = keys.clone();
+        Arrays.sort(sortedKeys);
+        long[] groupKeys = new long[sortedKeys.length];
+        int[] counts = new int[sortedKeys.length];
+        int groups = 0;
+        for (int s = 0; s < sortedKeys.length; s++) {
+            if (s == 0 || sortedKeys[s] != sortedKeys[s - 1]) {
+                groupKeys[groups++] = sortedKeys[s];
             }
-            groups.merge(effective, 1, Integer::sum);
+            counts[groups - 1]++;
         }
-        return getPartitionStats(groups, containedWords);
+
+        return getPartitionStats(counts, group -> {
+            Set<Word> members = new HashSet<>();
+            for (int s = 0; s < solutions.length; s++) {
+                if (keys[s] == groupKeys[group]) {
+                    members.add(solutions[s]);
+                }
+            }
+            return members;
+        }, solutions.length);
     }
 
-    public PartitionStats getPartitionStats(Map<WordRestrictions, Integer> groups, Set<Word> containedWords) {
+    /**
+     * Partitions the solutions by the feedback of every guess in the tuple, so that tuples extending it by one word
+     * can be scored with {@link #getPartitionStatsForTuple(TuplePartition, Word)}.
+     */
+    public TuplePartition getTuplePartition(Set<Word> containedWords, Set<Word> tuple) {
+        Word[] solutions = containedWords.toArray(new Word[0]);
+        long[] keys = getTupleKeys(solutions, tuple);
+        long[] groupKeys = Arrays.stream(keys).sorted().distinct().toArray();
+
+        //counting sort the solutions into their groups
+        int[] groups = new int[solutions.length];
+        int[] groupStarts = new int[groupKeys.length + 1];
+        for (int s = 0; s < solutions.length; s++) {
+            groups[s] = Arrays.binarySearch(groupKeys, keys[s]);
+            groupStarts[groups[s] + 1]++;
+        }
+        for (int g = 0; g < groupKeys.length; g++) {
+            groupStarts[g + 1] += groupStarts[g];
+        }
+        int[] next = Arrays.copyOf(groupStarts, groupKeys.length);
+        Word[] grouped = new Word[solutions.length];
+        for (int s = 0; s < solutions.length; s++) {
+            grouped[next[groups[s]]++] = solutions[s];
+        }
+
+        int[] answerIndexes = Arrays.stream(grouped).mapToInt(w -> feedbackMatrix == null ? -1 : feedbackMatrix.answerIndex(w)).toArray();
+        return new TuplePartition(grouped, groupStarts, answerIndexes);
+    }
+
+    /**
+     * Same result as {@link #getPartitionStatsForTuple(Set, Set)} for the partition's tuple plus
+     * this word, found by splitting each existing group by the word's feedback in one pass over the solutions.
+     */
+    public PartitionStats getPartitionStatsForTuple(TuplePartition partition, Word word) {
+        int guessIndex = feedbackMatrix == null ? -1 : feedbackMatrix.guessIndex(word);
+        int[] codes = new int[partition.size()];
+        int[] codeCounts = new int[FeedbackMatrix.patternCount(word.getLength())];
+        int[] sizes = new int[partition.size()];
+        int[] subgroupParents = new int[partition.size()];
+        int[] subgroupCodes = new int[partition.size()];
+        int subgroups = 0;
+        for (int g = 0; g < partition.groupCount(); g++) {
+            int start = partition.groupStart(g);
+            int end = partition.groupEnd(g);
+            for (int i = start; i < end; i++) {
+                int answerIndex = partition.answerIndex(i);
+                codes[i] = guessIndex >= 0 && answerIndex >= 0
+                        ? feedbackMatrix.code(guessIndex, answerIndex)
+                        : FeedbackMatrix.computeCode(word, partition.solution(i));
+                codeCounts[codes[i]]++;
+            }
+            //emit each code's count the first time it is seen, clearing it so the counts are ready for the next group
+            for (int i = start; i < end; i++) {
+                if (codeCounts[codes[i]] > 0) {
+                    subgroupParents[subgroups] = g;
+                    subgroupCodes[subgroups] = codes[i];
+                    sizes[subgroups++] = codeCounts[codes[i]];
+                    codeCounts[codes[i]] = 0;
+                }
+            }
+        }
+
+        return getPartitionStats(sizes, subgroup -> {
+            Set<Word> members = new HashSet<>();
+            for (int i = partition.groupStart(subgroupParents[subgroup]); i < partition.groupEnd(subgroupParents[subgroup]); i++) {
+                if (codes[i] == subgroupCodes[subgroup]) {
+                    members.add(partition.solution(i));
+                }
+            }
+            return members;
+        }, partition.size());
+    }
+
+    /**
+     * Keys each solution by the combined feedback of every guess in the tuple, so solutions with equal keys are
+     * indistinguishable after playing the whole tuple.
+     */
+    private long[] getTupleKeys(Word[] solutions, Set<Word> tuple) {
+        List<Word> guesses = new ArrayList<>(tuple);
+        int[] guessIndexes = guesses.stream().mapToInt(guess -> feedbackMatrix == null ? -1 : feedbackMatrix.guessIndex(guess)).toArray();
+        long[] keys = new long[solutions.length];
+        for (int s = 0; s < solutions.length; s++) {
+            long key = 0;
+            for (int i = 0; i < guesses.size(); i++) {
+                Word guess = guesses.get(i);
+                key = key * FeedbackMatrix.patternCount(guess.getLength()) + getFeedbackCode(guess, guessIndexes[i], solutions[s]);
+            }
+            keys[s] = key;
+        }
+        return keys;
+    }
+
+    private int getFeedbackCode(Word guess, int guessIndex, Word solution) {
+        if(guessIndex >= 0) {
+            int answerIndex = feedbackMatrix.answerIndex(solution);
+            if(answerIndex >= 0) {
+                return feedbackMatrix.code(guessIndex, answerIndex);
+            }
+        }
+        return FeedbackMatrix.computeCode(guess, solution);
+    }
+
+    /**
+     * Calculates the stats for a partition of the contained words. Every word in a group would leave exactly that
+     * group remaining, so the expected remaining words and the entropy only depend on the group sizes.
+     * @param groupSizes Number of words in each group. Empty groups are ignored.
+     * @param groupWords Provides the words in a group, only called for the hard mode rut check
+     * @param totalWords Number of words being partitioned
+     */
+    public PartitionStats getPartitionStats(int[] groupSizes, IntFunction<Set<Word>> groupWords, int totalWords) {
         List<SharedPositions> ruts = new ArrayList<>();
         double remaining = 0.0;
         double entropy = 0.0;
-        for(Map.Entry<WordRestrictions, Integer> group : groups.entrySet()) {
-            Set<Word> newWords = findMatchingWords(containedWords, group.getKey());
-            remaining += newWords.size() * group.getValue();
-            double probability = (double)group.getValue() / containedWords.size();
+        int groupCount = 0;
+        for(int group = 0; group < groupSizes.length; group++) {
+            int size = groupSizes[group];
+            if(size == 0) {
+                continue;
+            }
+            groupCount++;
+            remaining += (double) size * size;
+            double probability = (double)size / totalWords;
             //in hard mode, exclude potential ruts if we can
-            if(hardMode && newWords.size() < 30 && newWords.size() > 3) { //@todo configure rut break entropy limit
-                SharedPositions sharedPositions = findSharedWordRestrictions(newWords);
-                double sharedPositionSizeLimit = Math.min(5, Math.max(3, ((double)newWords.size() * 0.5)));
+            if(hardMode && size < 30 && size > 3) { //@todo configure rut break entropy limit
+                SharedPositions sharedPositions = findSharedWordRestrictions(groupWords.apply(group));
+                double sharedPositionSizeLimit = Math.min(5, Math.max(3, ((double)size * 0.5)));
                 if(sharedPositions.largestSet() > sharedPositionSizeLimit) {
-                    //log.info("De-prioritizing {} because max rut {} in {} for rut {}", word, sharedPositions.largestSet(), newWords, sharedPositions.sortedPositionStream().toList());
                     entropy += probability * (Math.log(probability) / Math.log(2));
                     SharedPositions filteredPositions = new SharedPositions(sharedPositions.knownPositions().entrySet().stream()
                             .filter(entry -> entry.getValue().size() > sharedPositionSizeLimit)
@@ -488,32 +952,60 @@ public class WordCalculationService {
                 }
             }
             entropy -= probability * (Math.log(probability) / Math.log(2));
-        };
+        }
 
         List<String> rutDescriptions = ruts.stream().map(SharedPositions::getDescription).flatMap(List::stream).toList();
 
-        return new PartitionStats(remaining / containedWords.size(), groups.size(), entropy, rutDescriptions);
+        return new PartitionStats(remaining / totalWords, groupCount, entropy, rutDescriptions);
     }
 
     public Set<PlayOut> getWordsBySolveLength(Set<Word> containedWords, Set<Word> fishing, Set<Word> wordPool, Solver solver, WordRestrictions startingRestrictions, int guessNumber) {
+        return getWordsBySolveLength(containedWords, fishing, wordPool, solver, startingRestrictions, guessNumber, null, playOut -> {});
+    }
+
+    /**
+     * Plays out every solution after each guess in the pool, with the guesses spread across the common pool when the
+     * {@link ExecutionPlanner} finds more than one core to use. The solver should be shared by every playout (see
+     * {@link com.appsoil.solvle.service.solvers.RemainingSolver#memoized}) so that states reached by many games are
+     * only analyzed once.
+     *
+     * @param deadline  Guesses that have not finished by this time are left out of the results, or null to finish all
+     * @param onPlayOut Called with each guess's results as soon as they are done, possibly from several threads at once
+     * @return the completed playouts, best average first
+     */
+    public Set<PlayOut> getWordsBySolveLength(Set<Word> containedWords, Set<Word> fishing, Set<Word> wordPool, Solver solver,
+                                              WordRestrictions startingRestrictions, int guessNumber, Instant deadline, Consumer<PlayOut> onPlayOut) {
         log.info("Generating {} playouts with {} valid solutions for {} total playouts using restrictions {}", wordPool.size(), containedWords.size(), (wordPool.size() * containedWords.size()), startingRestrictions);
+        ExecutionPlanner.Plan plan = planner.plan(ExecutionPlanner.Phase.PLAYOUT, wordPool.size(),
+                (long) wordPool.size() * containedWords.size() * PLAYOUT_OPS, feedbackMatrix != null);
+        long start = System.nanoTime();
         AtomicInteger i = new AtomicInteger(0);
-        return wordPool.stream().map(guess -> {
+        Set<PlayOut> playOuts = plan.apply(wordPool.stream()).map(guess -> {
             DescriptiveStatistics stats = new DescriptiveStatistics();
             List<List<String>> failures = new ArrayList<>();
-            containedWords.forEach(solution -> {
+            for (Word solution : containedWords) {
+                if (deadline != null && Instant.now().isAfter(deadline)) {
+                    return null;
+                }
                 List<String> r = solver.solve(solution, containedWords, fishing, guess, startingRestrictions);
                 stats.addValue(r.size());
                 if(r.size() > (6 - guessNumber)) {
                     failures.add(r);
                 }
-            });
+            }
             var countMap = Arrays.stream(stats.getSortedValues()).mapToInt(num -> (int) num).boxed().collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
             if(i.incrementAndGet() % 10 == 0) {
                 log.info("Completed " + i.get() + "/" + wordPool.size() + " playouts");
             }
-            return new PlayOut(guess.word(), stats.getMean(), countMap.toString(), failures);
-        }).collect(Collectors.toCollection(() -> new TreeSet<>()));
+            PlayOut playOut = new PlayOut(guess.word(), stats.getMean(), countMap.toString(), failures);
+            onPlayOut.accept(playOut);
+            return playOut;
+        }).filter(Objects::nonNull).collect(Collectors.toCollection(() -> new TreeSet<>()));
+        planner.finished(plan, start);
+        if (playOuts.size() < wordPool.size()) {
+            log.info("Deadline reached after {}/{} playouts", playOuts.size(), wordPool.size());
+        }
+        return playOuts;
     }
 
     /**
@@ -522,14 +1014,18 @@ public class WordCalculationService {
      * of letter variety.
      * @param n Number of words with letter
      * @return The nth value of the harmonic series. For example: 1(1), 2(1.5), 3(1.833), 4(2.083)...
+     * Returns n unchanged when the configuration does not use the harmonic series.
      */
-    private double harmonic(int n) {
+    protected double harmonic(int n) {
         if(!useHarmonic) {
             return n;
         }
-        double sum = 0.0;
-        for(int i = 1; i <= n; i++) {
-            sum += 1.0 / (double)n;
+        if (n < HARMONIC.length) {
+            return HARMONIC[n];
+        }
+        double sum = HARMONIC[HARMONIC.length - 1];
+        for(int i = HARMONIC.length; i <= n; i++) {
+            sum += 1.0 / (double)i;
         }
         return sum;
     }
@@ -597,18 +1093,19 @@ public class WordCalculationService {
                 return;
             }
             double multFactor = ((double)wordSet.size() / sharedPositions.largestSet()) * rutBreakMultiplier;
-            calculateCharacterCountsByPosition(wordSet).forEach((position, charMap) ->{
+            CharacterCounts counts = calculateCharacterCountsByPosition(wordSet);
+            for(int i = 0; i < counts.positions(); i++) {
                 // if the knownPosition doesn't have any value for this position, that means we still need to know it
                 //   so add the number of characters to the result
-                if(!kp.pos().containsKey(position)) {
-                    charMap.forEach((c, amt) -> {
+                if(!kp.pos().containsKey(i + 1)) {
+                    counts.letters(i).forEach((c, amt) -> {
                         // only add bonuses to letters we don't know
                         if(!wordRestrictions.requiredLetters().contains(c) && !kp.pos().containsValue(c)) {
-                            result.computeIfAbsent(c, k -> new DoubleAdder()).add(amt.longValue() * multFactor);
+                            result.computeIfAbsent(c, k -> new DoubleAdder()).add(amt * multFactor);
                         }
                     });
                 }
-            });
+            }
         });
         return result;
     }
@@ -9,7 +9,10 @@ import com.appsoil.solvle.service.WordCalculationConfig;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Guesses the top fishing word until few enough words remain that we can
@@ -22,9 +25,41 @@ public class RemainingSolver implements Solver {
 
     WordCalculationConfig config;
 
+    private final ConcurrentMap<WordRestrictions, Step> memo;
+
     public RemainingSolver(SolvleService solvleService,WordCalculationConfig config) {
+        this(solvleService, config, null);
+    }
+
+    /**
+     * @param memo Shared by every solve that uses the same word lists and configuration, so that games passing through
+     *             the same restrictions only analyze them once. May be null to analyze every step.
+     */
+    public RemainingSolver(SolvleService solvleService, WordCalculationConfig config, ConcurrentMap<WordRestrictions, Step> memo) {
         this.solvleService = solvleService;
         this.config = config;
+        this.memo = memo;
+    }
+
+    /**
+     * Creates a solver that remembers the guess for each restriction state it sees. Only safe to reuse for solves with
+     * the same viable and fishing word sets.
+     */
+    public static RemainingSolver memoized(SolvleService solvleService, WordCalculationConfig config) {
+        return new RemainingSolver(solvleService, config, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * @return how many restriction states have been analyzed and remembered, or 0 if this solver doesn't remember them
+     */
+    public int memoizedStates() {
+        return memo == null ? 0 : memo.size();
+    }
+
+    /**
+     * The analysis of one restriction state, and the guess made from it when none of its words have been guessed yet.
+     */
+    public record Step(SolvleDTO analysis, WordFrequencyScore guess) {
     }
 
     @Override
@@ -73,12 +108,10 @@ public class RemainingSolver implements Solver {
 
 
         //get the first guess
-        SolvleDTO analysis;
         WordFrequencyScore currentGuess;
 
         do {
-            analysis = solvleService.getWordAnalysis(wordRestrictions, viable, fishing, config);
-            currentGuess = getNextGuess(config, analysis, solution);
+            currentGuess = nextGuess(wordRestrictions, viable, fishing, solution);
             if(solution.contains(currentGuess.word())) {
                 throw new IllegalStateException("Stuck in a loop guessing " + currentGuess.word() + " for " + word + " after " +  solution);
             }
@@ -89,4 +122,24 @@ public class RemainingSolver implements Solver {
 
         return solution;
     }
+
+    private WordFrequencyScore nextGuess(WordRestrictions wordRestrictions, Set<Word> viable, Set<Word> fishing, List<String> solution) {
+        if (memo == null) {
+            return getNextGuess(config, solvleService.getWordAnalysis(wordRestrictions, viable, fishing, config), solution);
+        }
+        WordRestrictions key = wordRestrictions.canonical();
+        Step step = memo.get(key);
+        if (step == null) {
+            //not computeIfAbsent: the analysis runs parallel streams, and a worker holding the map's lock could pick up
+            //another solve that needs the same entry. Two threads may analyze the same state, but neither blocks.
+            SolvleDTO analysis = solvleService.getWordAnalysis(wordRestrictions, viable, fishing, config);
+            Step computed = new Step(analysis, getNextGuess(config, analysis, List.of()));
+            step = Objects.requireNonNullElse(memo.putIfAbsent(key, computed), computed);
+        }
+        //earlier guesses only change the choice when the remembered guess is one of them
+        if (step.guess() == null || solution.contains(step.guess().word())) {
+            return getNextGuess(config, step.analysis(), solution);
+        }
+        return step.guess();
+    }
 }
@@ -0,0 +1,52 @@
+package com.appsoil.solvle.config;
+
+import com.appsoil.solvle.data.Dictionary;
+import com.appsoil.solvle.data.Word;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class LazyDictionariesTest {
+
+    @Test
+    void get_firstUse_loadsOnlyThatDictionary() {
+        AtomicInteger loads = new AtomicInteger();
+        LazyDictionaries dictionaries = new LazyDictionaries(type -> {
+            loads.incrementAndGet();
+            return new Dictionary(Map.of(5, Set.of(new Word(type.name().toLowerCase()))));
+        });
+
+        Assertions.assertTrue(dictionaries.containsKey(DictionaryType.SIMPLE));
+        Assertions.assertEquals(0, loads.get());
+
+        Dictionary simple = dictionaries.get(DictionaryType.SIMPLE);
+        Assertions.assertSame(simple, dictionaries.get(DictionaryType.SIMPLE));
+        Assertions.assertTrue(dictionaries.isLoaded(DictionaryType.SIMPLE));
+        Assertions.assertFalse(dictionaries.isLoaded(DictionaryType.BIG));
+        Assertions.assertEquals(1, loads.get());
+        Assertions.assertNull(dictionaries.get("SIMPLE"));
+    }
+
+    @Test
+    void get_concurrentRequests_loadsOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        LazyDictionaries dictionaries = new LazyDictionaries(type -> {
+            loads.incrementAndGet();
+            return new Dictionary(Map.of());
+        });
+
+        Set<Dictionary> results = IntStream.range(0, 8)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> dictionaries.get(DictionaryType.BIG)))
+                .map(CompletableFuture::join)
+                .collect(Collectors.toSet());
+
+        Assertions.assertEquals(1, results.size());
+        Assertions.assertEquals(1, loads.get());
+    }
+}
@@ -0,0 +1,74 @@
+package com.appsoil.solvle.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class SingleFlightCaffeineCacheTest {
+
+    @Test
+    void get_concurrentMisses_computesOnce() throws Exception {
+        SingleFlightCaffeineCache cache = new SingleFlightCaffeineCache("test", Caffeine.newBuilder().build(), false);
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> cache.get("key", () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            release.await();
+            return "value";
+        }));
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        AtomicReference<String> secondResult = new AtomicReference<>();
+        Thread second = new Thread(() -> secondResult.set(cache.get("key", () -> {
+            calls.incrementAndGet();
+            return "other";
+        })));
+        second.start();
+        //release the first call only once the second is parked waiting for it
+        while (second.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+        second.join(5000);
+
+        Assertions.assertEquals("value", first.get(5, TimeUnit.SECONDS));
+        Assertions.assertEquals("value", secondResult.get());
+        Assertions.assertEquals(1, calls.get());
+        Assertions.assertEquals(0, cache.inFlightCount());
+    }
+
+    @Test
+    void get_computedMiss_countsOneMiss() {
+        SingleFlightCaffeineCache cache = new SingleFlightCaffeineCache("test", Caffeine.newBuilder().recordStats().build(), false);
+
+        Assertions.assertFalse(cache.containsKey("key"));
+        Assertions.assertEquals("value", cache.get("key", () -> "value"));
+        Assertions.assertTrue(cache.containsKey("key"));
+        Assertions.assertEquals("value", cache.get("key", () -> "other"));
+
+        Assertions.assertEquals(1, cache.getNativeCache().stats().missCount());
+        Assertions.assertEquals(1, cache.getNativeCache().stats().hitCount());
+    }
+
+    @Test
+    void get_loaderFails_isNotCached() {
+        SingleFlightCaffeineCache cache = new SingleFlightCaffeineCache("test", Caffeine.newBuilder().build(), false);
+
+        Assertions.assertThrows(Cache.ValueRetrievalException.class, () -> cache.get("key", () -> {
+            throw new IllegalStateException("failed");
+        }));
+
+        Assertions.assertEquals("value", cache.get("key", () -> "value"));
+        Assertions.assertEquals(0, cache.inFlightCount());
+    }
+}
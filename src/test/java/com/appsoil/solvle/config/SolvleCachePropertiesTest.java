@@ -0,0 +1,27 @@
+package com.appsoil.solvle.config;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+public class SolvleCachePropertiesTest {
+
+    @Test
+    void specFor_namedCache_overridesDefaults() {
+        SolvleCacheProperties properties = new SolvleCacheProperties(
+                new SolvleCacheProperties.CacheSpec(100L, null, Duration.ofHours(1)),
+                Map.of("validWords", new SolvleCacheProperties.CacheSpec(5L, Duration.ofMinutes(5), null)));
+
+        Assertions.assertEquals(new SolvleCacheProperties.CacheSpec(5L, Duration.ofMinutes(5), Duration.ofHours(1)), properties.specFor("validWords"));
+        Assertions.assertEquals(new SolvleCacheProperties.CacheSpec(100L, null, Duration.ofHours(1)), properties.specFor("wordScore"));
+    }
+
+    @Test
+    void specFor_nothingConfigured_isStillBounded() {
+        SolvleCacheProperties properties = new SolvleCacheProperties(null, null);
+
+        Assertions.assertEquals(SolvleCacheProperties.DEFAULT_MAXIMUM_SIZE, (long) properties.specFor("tupleScore").maximumSize());
+    }
+}
@@ -0,0 +1,60 @@
+package com.appsoil.solvle.controller;
+
+import com.appsoil.solvle.config.DictionaryType;
+import com.appsoil.solvle.service.ExecutionPlanner;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+
+public class LatencyHistogramTest {
+
+    @ParameterizedTest
+    @CsvSource({"0", "15", "16", "17", "100", "1000", "12345", "999999", "68719476735"})
+    void bucketIndex_anyValue_bucketHoldsValueWithinSixPercent(long micros) {
+        int index = LatencyHistogram.bucketIndex(micros);
+        long highest = LatencyHistogram.highestInBucket(index);
+
+        Assertions.assertTrue(highest >= micros);
+        Assertions.assertTrue(highest - micros <= micros / LatencyHistogram.SUB_BUCKETS);
+        Assertions.assertTrue(index == 0 || LatencyHistogram.highestInBucket(index - 1) < micros);
+    }
+
+    @Test
+    void cumulativeCounts_bucketEdges_countExactly() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 2000; micros++) {
+            histogram.recordNanos(micros * 1000);
+        }
+
+        long[] result = histogram.cumulativeCounts(new long[]{511, 767, 1023, 1535, 4095});
+
+        Assertions.assertArrayEquals(new long[]{511, 767, 1023, 1535, 2000, 2000}, result);
+    }
+
+    @Test
+    void bucketEdges_exportedEdges_areHistogramBucketEdges() {
+        for (long edge : RequestMetrics.BUCKET_EDGES_MICROS) {
+            Assertions.assertEquals(edge - 1, LatencyHistogram.highestInBucket(LatencyHistogram.bucketIndex(edge - 1)));
+        }
+    }
+
+    @Test
+    void toPrometheus_recordedRequest_writesHistogramWithLabels() {
+        RequestMetrics metrics = new RequestMetrics();
+        metrics.record(RequestMetrics.Endpoint.SCORE_TUPLE, DictionaryType.SIMPLE, null, System.nanoTime());
+
+        String result = metrics.toPrometheus(List.of(new CacheStatsDTO("validWords", 2, 3, 4, 0.5, 1)),
+                new PrefetchStatsDTO(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0),
+                List.of(new ExecutionPlanner.PhaseStats(ExecutionPlanner.Phase.SCORE, false, 4, 1000, 2_000_000)));
+
+        Assertions.assertTrue(result.contains("# TYPE solvle_request_duration_seconds histogram\n"));
+        Assertions.assertTrue(result.contains("solvle_request_duration_seconds_count{endpoint=\"score_tuple\",dictionary=\"SIMPLE\",config=\"NONE\"} 1\n"));
+        Assertions.assertTrue(result.contains("solvle_request_duration_seconds_bucket{endpoint=\"score_tuple\",dictionary=\"SIMPLE\",config=\"NONE\",le=\"0.001024\"} 1\n"));
+        Assertions.assertTrue(result.contains("solvle_request_duration_seconds_bucket{endpoint=\"score_tuple\",dictionary=\"SIMPLE\",config=\"NONE\",le=\"+Inf\"} 1\n"));
+        Assertions.assertTrue(result.contains("solvle_cache_hits_total{cache=\"validWords\"} 3\n"));
+        Assertions.assertTrue(result.contains("solvle_plan_runs_total{phase=\"score\",mode=\"sequential\"} 4\n"));
+    }
+}
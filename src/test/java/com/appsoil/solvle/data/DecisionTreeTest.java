@@ -0,0 +1,60 @@
+package com.appsoil.solvle.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+public class DecisionTreeTest {
+
+    @Test
+    void child_builtTree_followsFeedbackCodes() {
+        DecisionTree tree = sampleTree();
+
+        Assertions.assertEquals(4, tree.size());
+        Assertions.assertEquals("crane", tree.guess(DecisionTree.ROOT));
+        Assertions.assertEquals(0.75, tree.fishingScore(DecisionTree.ROOT));
+        Assertions.assertEquals("sloth", tree.guess(tree.child(DecisionTree.ROOT, 0)));
+        Assertions.assertEquals("crank", tree.guess(tree.child(DecisionTree.ROOT, 80)));
+        Assertions.assertEquals("sloth", tree.guess(tree.child(tree.child(DecisionTree.ROOT, 0), 5)));
+        Assertions.assertEquals(-1, tree.child(DecisionTree.ROOT, 1));
+        Assertions.assertEquals(-1, tree.child(tree.child(DecisionTree.ROOT, 80), 0));
+    }
+
+    @Test
+    void read_writtenTree_matchesOriginal() throws IOException {
+        DecisionTree tree = sampleTree();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tree.write(out);
+
+        DecisionTree read = DecisionTree.read(new ByteArrayInputStream(out.toByteArray()));
+
+        Assertions.assertEquals(tree.fingerprint(), read.fingerprint());
+        Assertions.assertEquals(tree.size(), read.size());
+        for (int node = 0; node < tree.size(); node++) {
+            Assertions.assertEquals(tree.guess(node), read.guess(node));
+            Assertions.assertEquals(tree.fishingScore(node), read.fishingScore(node));
+            for (int code = 0; code < FeedbackMatrix.patternCount(5); code++) {
+                Assertions.assertEquals(tree.child(node, code), read.child(node, code));
+            }
+        }
+    }
+
+    @Test
+    void read_notATree_throws() {
+        Assertions.assertThrows(IOException.class, () -> DecisionTree.read(new ByteArrayInputStream(new byte[]{1, 2, 3, 4, 5, 6, 7, 8})));
+    }
+
+    private static DecisionTree sampleTree() {
+        DecisionTree.Builder builder = new DecisionTree.Builder(42L);
+        int root = builder.addNode("crane", 0.75);
+        int crank = builder.addNode("crank", 0.5);
+        int sloth = builder.addNode("sloth", 0.25);
+        builder.addChild(root, 80, crank);
+        builder.addChild(root, 0, sloth);
+        builder.addChild(sloth, 5, builder.addNode("sloth", 0.125));
+        return builder.build();
+    }
+}
@@ -0,0 +1,75 @@
+package com.appsoil.solvle.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class DictionarySnapshotTest {
+
+    @Test
+    void read_writtenSnapshot_matchesDictionary() throws IOException {
+        Dictionary dictionary = sampleDictionary();
+
+        Dictionary read = DictionarySnapshot.read(ByteBuffer.wrap(write(dictionary, 7L)), 7L);
+
+        Assertions.assertEquals(dictionary.wordsBySize().keySet(), read.wordsBySize().keySet());
+        dictionary.wordsBySize().forEach((length, words) -> {
+            Assertions.assertEquals(describe(words), describe(read.wordsBySize().get(length)));
+        });
+        Word packed = read.wordsBySize().get(5).stream().filter(w -> w.word().equals("ísöld")).findFirst().orElseThrow();
+        Assertions.assertTrue(packed.hasPackedLetters());
+        Assertions.assertEquals(new Word("ísöld").letterMask(), packed.letterMask());
+    }
+
+    @Test
+    void read_differentChecksum_returnsNull() throws IOException {
+        Assertions.assertNull(DictionarySnapshot.read(ByteBuffer.wrap(write(sampleDictionary(), 7L)), 8L));
+    }
+
+    @Test
+    void read_withoutChecksum_readsAnySnapshot() throws IOException {
+        byte[] snapshot = write(sampleDictionary(), 7L);
+
+        Assertions.assertEquals(7L, DictionarySnapshot.readChecksum(ByteBuffer.wrap(snapshot)));
+        Assertions.assertEquals(describe(sampleDictionary().wordsBySize().get(5)),
+                describe(DictionarySnapshot.read(ByteBuffer.wrap(snapshot)).wordsBySize().get(5)));
+    }
+
+    @Test
+    void read_truncatedSnapshot_throws() throws IOException {
+        byte[] snapshot = write(sampleDictionary(), 7L);
+
+        Assertions.assertThrows(IOException.class, () -> DictionarySnapshot.read(ByteBuffer.wrap(Arrays.copyOf(snapshot, snapshot.length - 3)), 7L));
+    }
+
+    private static Dictionary sampleDictionary() {
+        return new Dictionary(Map.of(
+                5, words("crane", "abbey", "ísöld", "zesty"),
+                3, words("ABC", "a-b", "cat")));
+    }
+
+    private static Set<Word> words(String... words) {
+        return Stream.of(words).map(Word::new).collect(Collectors.toCollection(TreeSet::new));
+    }
+
+    private static byte[] write(Dictionary dictionary, long checksum) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DictionarySnapshot.write(dictionary, checksum, out);
+        return out.toByteArray();
+    }
+
+    private static List<String> describe(Set<Word> words) {
+        return words.stream().sorted(Comparator.comparing(Word::word)).map(w -> w.word() + ":" + w.getOrder()).toList();
+    }
+}
@@ -0,0 +1,57 @@
+package com.appsoil.solvle.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+public class FeedbackMatrixTest {
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "abcde | abcde | GGGGG",
+            "abcde | fghij | -----",
+            "abcde | eabcd | YYYYY",
+            "crane | eerie | --Y-G",  // leading e's are gray because the only e was already matched
+            "abbey | bobby | Y-G-G",
+            "aabcd | dcbaa | YYGYY",
+            "speed | abide | ---YY",
+            "geese | eerie | YG--G",
+    }, delimiter = '|')
+    void computeCode_duplicateLetters_matchesGameFeedback(String solution, String guess, String expected) {
+        int code = FeedbackMatrix.computeCode(new Word(guess), new Word(solution));
+
+        Assertions.assertEquals(expected, decode(code, guess.length()));
+    }
+
+    @Test
+    void code_matrixLookup_matchesComputedCode() {
+        List<Word> answers = Stream.of("abcde", "aabcd", "bcdea", "edcba").map(Word::new).toList();
+        List<Word> guesses = Stream.of("aaaaa", "abcde", "eeeee", "deabc", "fghij").map(Word::new).toList();
+        FeedbackMatrix matrix = new FeedbackMatrix(guesses, answers);
+
+        for (Word guess : guesses) {
+            for (Word answer : answers) {
+                Assertions.assertEquals(FeedbackMatrix.computeCode(guess, answer), matrix.code(guess, answer));
+            }
+        }
+        Assertions.assertEquals(-1, matrix.guessIndex(new Word("zzzzz")));
+        Assertions.assertEquals(FeedbackMatrix.computeCode(new Word("zzzzz"), answers.get(0)), matrix.code(new Word("zzzzz"), answers.get(0)));
+    }
+
+    private static String decode(int code, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append(switch (code % 3) {
+                case FeedbackMatrix.GREEN -> 'G';
+                case FeedbackMatrix.YELLOW -> 'Y';
+                default -> '-';
+            });
+            code /= 3;
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,40 @@
+package com.appsoil.solvle.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public class PartitionDataSnapshotTest {
+
+    private static final Map<Word, PartitionStats> PARTITION_DATA = Map.of(
+            new Word("crane"), new PartitionStats(78.7, 147, 5.74, List.of()),
+            new Word("ísöld"), new PartitionStats(1.5, 2, 1.0, List.of("_ight")));
+
+    @Test
+    void read_writtenData_matches() throws IOException {
+        Map<Word, PartitionStats> read = PartitionDataSnapshot.read(new ByteArrayInputStream(write(7L)), 7L);
+
+        Assertions.assertEquals(PARTITION_DATA, read);
+    }
+
+    @Test
+    void read_differentFingerprint_returnsNull() throws IOException {
+        Assertions.assertNull(PartitionDataSnapshot.read(new ByteArrayInputStream(write(7L)), 8L));
+    }
+
+    @Test
+    void read_notPartitionData_throws() {
+        Assertions.assertThrows(IOException.class, () -> PartitionDataSnapshot.read(new ByteArrayInputStream(new byte[16]), 7L));
+    }
+
+    private static byte[] write(long fingerprint) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PartitionDataSnapshot.write(PARTITION_DATA, fingerprint, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,42 @@
+package com.appsoil.solvle.data;
+
+import com.appsoil.solvle.service.WordCalculationConfig;
+import com.appsoil.solvle.service.WordCalculationService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class WordIndexTest {
+
+    private static final Set<Word> WORDS = Stream.of("aaaaa", "aaaab", "aaabc", "aabcd", "abcde", "bcdea", "geese", "eerie", "crane", "ABCDE")
+            .map(Word::new)
+            .collect(Collectors.toSet());
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "abcdefghijklmnopqrstuvwxyz",
+            "abcde",
+            "a1bcde",
+            "a!1bcde",
+            "a^2bcde",
+            "a^3b!5cde",
+            "e^3gs",
+            "crane!3",
+            "e5irg",
+            "zzz!",
+            "ABCDE",
+    })
+    void findMatchingWords_matchesFullScan(String restrictionString) {
+        WordRestrictions restrictions = new WordRestrictions(restrictionString);
+        WordCalculationService wordCalculationService = new WordCalculationService(WordCalculationConfig.SIMPLE);
+        WordIndex index = new WordIndex(WORDS);
+
+        Set<Word> expected = WORDS.stream().filter(w -> wordCalculationService.isValidWord(w, restrictions)).collect(Collectors.toSet());
+
+        Assertions.assertEquals(expected, index.findMatchingWords(restrictions, w -> wordCalculationService.isValidWord(w, restrictions)));
+    }
+}
@@ -0,0 +1,43 @@
+package com.appsoil.solvle.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+public class WordRestrictionsTest {
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "abcde       | edcba",           // letter order
+            "aabcde      | abcde",           // duplicate letters
+            "a1bcde      | a1!bcde",         // known position already required
+            "a1b!1cde    | a1b!cde",         // exclusion implied by known letter
+            "a^1bcde     | a!bcde",          // single frequency implied by required
+            "a12^2bcde   | a12bcde",         // frequency implied by known positions
+            "a!2bcde     | bcdea!2",         // same constraints in a different order
+    }, delimiter = '|')
+    void canonical_equivalentRestrictions_areEqual(String first, String second) {
+        Assertions.assertEquals(new WordRestrictions(first).canonical(), new WordRestrictions(second).canonical());
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "abcde       | abcdf",
+            "a1bcde      | a2bcde",
+            "a!1bcde     | a!2bcde",
+            "a^2bcde     | a!bcde",
+            "a1^2bcde    | a1bcde",
+    }, delimiter = '|')
+    void canonical_differentRestrictions_areNotEqual(String first, String second) {
+        Assertions.assertNotEquals(new WordRestrictions(first).canonical(), new WordRestrictions(second).canonical());
+    }
+
+    @Test
+    void canonical_isIdempotent() {
+        WordRestrictions canonical = new WordRestrictions("e^2!45b1!2cdfa").canonical();
+
+        Assertions.assertEquals(canonical, canonical.canonical());
+        Assertions.assertEquals(WordRestrictions.NO_RESTRICTIONS, WordRestrictions.NO_RESTRICTIONS.canonical());
+    }
+}
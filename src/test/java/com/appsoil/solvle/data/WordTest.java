@@ -0,0 +1,49 @@
+package com.appsoil.solvle.data;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Map;
+
+public class WordTest {
+
+    @Test
+    void packedLetters_countsAndMask_matchLetters() {
+        Word word = new Word("geese");
+
+        Assertions.assertTrue(word.hasPackedLetters());
+        Assertions.assertEquals(Map.of('g', 1, 'e', 3, 's', 1), word.letters());
+        Assertions.assertEquals(3, word.countIndex(Alphabet.indexOf('e')));
+        Assertions.assertEquals(Alphabet.mask("ges"), word.letterMask());
+        Assertions.assertEquals(Alphabet.indexOf('s'), word.letterIndex(3));
+    }
+
+    @Test
+    void packedLetters_outsideAlphabet_fallsBackToString() {
+        Word word = new Word("AAB!");
+
+        Assertions.assertFalse(word.hasPackedLetters());
+        Assertions.assertEquals(2, word.count('A'));
+        Assertions.assertEquals(1, word.count('!'));
+        Assertions.assertFalse(word.contains('a'));
+    }
+
+    @ParameterizedTest
+    @CsvSource(value = {
+            "abcde | abcde        | true",
+            "abcde | abcd         | false",
+            "abcde | a1bcde       | true",
+            "abcde | a2bcde       | false",
+            "abcde | a!1bcde      | false",
+            "abcde | a!2bcde      | true",
+            "aabcd | a^2bcd       | true",
+            "abcde | a^2bcde      | false",
+            "abcde | abcdeð!      | false",
+            "áðcde | áð2cde       | true",
+    }, delimiter = '|')
+    void packedRestrictions_matchesRestrictionString(String word, String restrictions, boolean expected) {
+        Assertions.assertEquals(expected, PackedRestrictions.of(new WordRestrictions(restrictions)).matches(new Word(word)));
+    }
+}
@@ -0,0 +1,44 @@
+package com.appsoil.solvle.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+public class ExecutionPlannerTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "4, 14856, 74280, false",
+            "4, 14856, 1114200, true",
+            "1, 14856, 1114200, false",
+            "4, 1, 1114200, false"})
+    void plan_workAndWorkers_choosesParallelOnlyForLargePhases(int workers, int items, long work, boolean parallel) {
+        ExecutionPlanner planner = new ExecutionPlanner(workers);
+
+        ExecutionPlanner.Plan plan = planner.plan(ExecutionPlanner.Phase.SCORE, items, work, true);
+
+        Assertions.assertEquals(parallel, plan.parallel());
+        Assertions.assertEquals(parallel, plan.apply(IntStream.range(0, items)).isParallel());
+    }
+
+    @Test
+    void finished_plans_recordedByPhaseAndMode() {
+        ExecutionPlanner planner = new ExecutionPlanner(4);
+
+        planner.finished(planner.plan(ExecutionPlanner.Phase.FILTER, 10, 80, true), System.nanoTime());
+        planner.finished(planner.plan(ExecutionPlanner.Phase.FILTER, 30, 240, true), System.nanoTime());
+        planner.finished(planner.plan(ExecutionPlanner.Phase.PARTITION, 200, 1_000_000, false), System.nanoTime());
+
+        List<ExecutionPlanner.PhaseStats> stats = planner.stats();
+        Assertions.assertEquals(2, stats.size());
+        Assertions.assertEquals(ExecutionPlanner.Phase.FILTER, stats.get(0).phase());
+        Assertions.assertFalse(stats.get(0).parallel());
+        Assertions.assertEquals(2, stats.get(0).runs());
+        Assertions.assertEquals(40, stats.get(0).items());
+        Assertions.assertTrue(stats.get(1).parallel());
+    }
+}
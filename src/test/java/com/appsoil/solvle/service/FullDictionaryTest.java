@@ -178,7 +178,7 @@ public class FullDictionaryTest {
     public void dictionaryRemainingPermutationSolver2( WordCalculationConfig config) {
         log.info("Starting permutation solver {}", config);
         String firstWord = "";
-        addStats(config, solvleService.solveDictionary(new RemainingSolver(solvleService, config), firstWord, config, DictionaryType.SIMPLE));
+        addStats(config, solvleService.solveDictionary(config, firstWord, DictionaryType.SIMPLE).guesses());
     }
 
     private static Stream<Arguments> dictionaryPermutationParameters() {
@@ -226,7 +226,7 @@ public class FullDictionaryTest {
         Arrays.stream(WordConfig.values()).forEach((config) -> {
             log.info("Running " + config.toString());
             WordCalculationConfig c = config.config.withHardMode(false);
-            addStats(c, solvleService.solveDictionary(new RemainingSolver(solvleService, c), firstWord, c, DictionaryType.SIMPLE));
+            addStats(c, solvleService.solveDictionary(c, firstWord, DictionaryType.SIMPLE).guesses());
         });
     }
 
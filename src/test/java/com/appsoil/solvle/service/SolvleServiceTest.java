@@ -1,11 +1,18 @@
 package com.appsoil.solvle.service;
 
 import com.appsoil.solvle.config.DictionaryType;
+import com.appsoil.solvle.controller.GameScoreDTO;
 import com.appsoil.solvle.controller.SolvleDTO;
+import com.appsoil.solvle.data.DecisionTree;
 import com.appsoil.solvle.data.Dictionary;
+import com.appsoil.solvle.data.DictionarySolution;
+import com.appsoil.solvle.data.FeedbackMatrix;
+import com.appsoil.solvle.data.PlayOut;
 import com.appsoil.solvle.data.Word;
 import com.appsoil.solvle.data.WordFrequencyScore;
+import com.appsoil.solvle.data.WordIndex;
 import com.appsoil.solvle.data.WordRestrictions;
+import com.appsoil.solvle.service.solvers.RemainingSolver;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -17,10 +24,18 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -249,5 +264,154 @@ public class SolvleServiceTest {
         Assertions.assertEquals(expected, result);
     }
 
+    @ParameterizedTest
+    @CsvSource({"aaaaa", "aaaab", "aaabc", "aabcd", "abcde", "bcdea"})
+    void solveWord_decisionTree_matchesSolver(String solution) {
+        DecisionTreeKey key = new DecisionTreeKey(DictionaryType.SIMPLE, WordConfig.SIMPLE_WITH_PARTITIONING, false, false);
+        solvleService.buildDecisionTree(key);
+
+        List<String> expected = solvleService.solveWord(new RemainingSolver(solvleService, key.config()), new Word(solution), "", DictionaryType.SIMPLE);
+
+        Assertions.assertEquals(expected, solvleService.solveWord(key, new Word(solution), ""));
+    }
+
+    @Test
+    void addDecisionTree_savedTree_answersFromTree() throws IOException {
+        DecisionTreeKey key = new DecisionTreeKey(DictionaryType.SIMPLE, WordConfig.TWO_OR_LESS, false, false);
+        //guess the last word left at every node, which is not what the solver would guess first
+        List<Word> words = solvleService.getPrimarySet(DictionaryType.SIMPLE).stream().sorted(Comparator.comparing(Word::word)).toList();
+        DecisionTree.Builder builder = new DecisionTree.Builder(solvleService.getDecisionTreeFingerprint(key));
+        addLastWordNode(builder, words);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        builder.build().write(out);
+
+        DecisionTree loaded = DecisionTree.read(new ByteArrayInputStream(out.toByteArray()));
+        solvleService.addDecisionTree(key, loaded);
+
+        Assertions.assertSame(loaded, solvleService.getDecisionTree(key));
+        SolvleDTO analysis = solvleService.getWordAnalysis(WordRestrictions.noRestrictions(), DictionaryType.SIMPLE, key.wordConfig(), false, false);
+        Assertions.assertNotEquals("bcdea", RemainingSolver.getNextGuess(key.config(), analysis, List.of()).word());
+        Assertions.assertEquals(List.of("bcdea", "aabcd"), solvleService.solveWord(key, new Word("aabcd"), ""));
+        Assertions.assertEquals(List.of("bcdea", "aabcd"), solvleService.rateGame("aabcd", List.of("bcdea", "aabcd"), DictionaryType.SIMPLE,
+                key.wordConfig(), false, false).getRows().stream().map(GameScoreDTO.GameScoreRow::solvleWord).toList());
+        Assertions.assertTrue(solvleService.isOnDecisionTree("a5fghijklmnopqrstuvwxyz", DictionaryType.SIMPLE, key.wordConfig(), false, false));
+        Assertions.assertFalse(solvleService.isOnDecisionTree("a5fghijklmnopqrstuvwxyz", DictionaryType.SIMPLE, key.wordConfig(), true, false));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> solvleService.addDecisionTree(new DecisionTreeKey(DictionaryType.SIMPLE, WordConfig.TWO_OR_LESS, true, false), loaded));
+    }
+
+    private static int addLastWordNode(DecisionTree.Builder builder, List<Word> remaining) {
+        Word guess = remaining.get(remaining.size() - 1);
+        int node = builder.addNode(guess.word(), 1);
+        Map<Integer, List<Word>> groups = new TreeMap<>();
+        remaining.stream().filter(word -> !word.equals(guess))
+                .forEach(word -> groups.computeIfAbsent(FeedbackMatrix.computeCode(guess, word), code -> new ArrayList<>()).add(word));
+        groups.forEach((code, group) -> builder.addChild(node, code, addLastWordNode(builder, group)));
+        return node;
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "abcde, 1",
+            "abcde, 100",
+            "a1bcde, 2",
+            "a!1bcde, 100"})
+    void getWordAnalysis_partitionDeadline_ranksRegardlessOfThreshold(String restrictionString, int partitionThreshold) {
+        Set<Word> words = solvleService.getPrimarySet(DictionaryType.SIMPLE);
+        WordRestrictions restrictions = new WordRestrictions(restrictionString);
+
+        SolvleDTO expected = solvleService.getWordAnalysis(restrictions, words, words, config.config.withPartitionThreshold(100));
+        SolvleDTO result = solvleService.getWordAnalysis(restrictions, words, words, config.config.withPartitionThreshold(partitionThreshold),
+                Instant.now().plusSeconds(60));
+
+        Assertions.assertTrue(result.bestWordsComplete());
+        Assertions.assertEquals(expected.bestWords().stream().map(score -> score.word() + score.freqScore()).toList(),
+                result.bestWords().stream().map(score -> score.word() + score.freqScore()).toList());
+    }
+
+    @Test
+    void getWordAnalysis_partitionDeadlinePassed_returnsIncompleteBestWords() {
+        Set<Word> words = solvleService.getPrimarySet(DictionaryType.SIMPLE);
+
+        SolvleDTO result = solvleService.getWordAnalysis(new WordRestrictions("abcde"), words, words, config.config.withPartitionThreshold(100), Instant.now());
+
+        Assertions.assertFalse(result.bestWordsComplete());
+        Assertions.assertTrue(result.bestWords().isEmpty());
+        Assertions.assertEquals(6, result.totalWords());
+    }
 
+    @Test
+    void getWordAnalysis_hardMode_filtersFishingSetThroughIndex() {
+        Dictionary big = new Dictionary(Map.of(5, Stream.of("aaaab", "aabcd", "abcde", "bcdea", "edcba").map(Word::new).collect(Collectors.toSet())));
+        Dictionary simple = new Dictionary(Map.of(5, Stream.of("aaaab", "aabcd", "abcde").map(Word::new).collect(Collectors.toSet())));
+        SolvleService service = new SolvleService(Map.of(DictionaryType.SIMPLE, simple, DictionaryType.BIG, big));
+        Set<Word> fishingSet = big.wordsBySize().get(5);
+        Assertions.assertNull(service.getWordIndex(fishingSet));
+
+        SolvleDTO result = service.getWordAnalysis("a1bcde", DictionaryType.SIMPLE, config, true, false);
+
+        //looked up by the set first, since looking up BIG by type would register its set
+        WordIndex index = service.getWordIndex(fishingSet);
+        Assertions.assertNotNull(index);
+        Assertions.assertSame(service.getWordIndex(DictionaryType.BIG), index);
+        Assertions.assertEquals(Set.of("aaaab", "aabcd", "abcde"), result.fishingWords().stream().map(WordFrequencyScore::word).collect(Collectors.toSet()));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "abcde, aaaaa, 5, 5",
+            "abcde, bcdea, 2, 2",
+            "a1bcde, aaaab, 5, 4"})
+    void getLikelyNextRestrictions_guess_largestGroupsFirst(String restrictionString, String guess, int limit, int expectedStates) {
+        Set<Word> words = solvleService.getPrimarySet(DictionaryType.SIMPLE);
+        WordRestrictions restrictions = new WordRestrictions(restrictionString);
+
+        List<WordRestrictions> result = solvleService.getLikelyNextRestrictions(restrictions, DictionaryType.SIMPLE, config.config, new Word(guess), limit);
+
+        Assertions.assertEquals(expectedStates, result.size());
+        List<Integer> groupSizes = result.stream()
+                .map(next -> solvleService.getWordAnalysis(next, words, words, config.config).totalWords())
+                .toList();
+        Assertions.assertEquals(groupSizes.stream().sorted(Collections.reverseOrder()).toList(), groupSizes);
+        //the guess solves the game, so none of the next states can still contain it
+        result.forEach(next -> Assertions.assertFalse(solvleService.getWordAnalysis(next, words, words, config.config).wordList()
+                .stream().anyMatch(score -> score.word().equals(guess))));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"aaaaa", "aaaab", "aaabc", "aabcd", "abcde", "bcdea"})
+    void solveWord_memoizedSolver_matchesSolver(String solution) {
+        WordCalculationConfig wordCalculationConfig = WordConfig.SIMPLE_WITH_PARTITIONING.config;
+        RemainingSolver memoized = RemainingSolver.memoized(solvleService, wordCalculationConfig);
+        //warm the memo with every other game first so this one is answered from it
+        Stream.of("aaaaa", "aaaab", "aaabc", "aabcd", "abcde", "bcdea").forEach(other ->
+                solvleService.solveWord(memoized, new Word(other), "", DictionaryType.SIMPLE));
+
+        List<String> expected = solvleService.solveWord(new RemainingSolver(solvleService, wordCalculationConfig), new Word(solution), "", DictionaryType.SIMPLE);
+
+        Assertions.assertEquals(expected, solvleService.solveWord(memoized, new Word(solution), "", DictionaryType.SIMPLE));
+    }
+
+    @Test
+    void playOutSolutions_streamed_matchesCachedResults() {
+        List<PlayOut> streamed = Collections.synchronizedList(new ArrayList<>());
+        Set<PlayOut> result = solvleService.playOutSolutions("abcde", DictionaryType.SIMPLE, config, false, 1, null, streamed::add);
+
+        Assertions.assertEquals(solvleService.playOutSolutions("abcde", DictionaryType.SIMPLE, config, false, 1), result);
+        Assertions.assertEquals(result, Set.copyOf(streamed));
+        Assertions.assertEquals(Set.of(), solvleService.playOutSolutions("abcde", DictionaryType.SIMPLE, config, false, 1, Instant.now().minusSeconds(1), streamed::add));
+    }
+
+    @Test
+    void solveDictionary_memoized_matchesSolverForEveryWord() {
+        WordCalculationConfig wordCalculationConfig = WordConfig.SIMPLE_WITH_PARTITIONING.config;
+        DictionarySolution solution = solvleService.solveDictionary(wordCalculationConfig, "", DictionaryType.SIMPLE);
+
+        RemainingSolver solver = new RemainingSolver(solvleService, wordCalculationConfig);
+        Assertions.assertEquals(6, solution.guesses().size());
+        solution.guesses().forEach((word, guesses) -> Assertions.assertEquals(
+                solvleService.solveWord(solver, new Word(word), solution.firstWord(), DictionaryType.SIMPLE), guesses));
+        Assertions.assertEquals(6, solution.counts().values().stream().mapToLong(Long::longValue).sum());
+        Assertions.assertEquals(solution.guesses().values().stream().mapToInt(List::size).max().orElseThrow(), solution.max());
+    }
 }
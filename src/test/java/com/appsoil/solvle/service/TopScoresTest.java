@@ -0,0 +1,41 @@
+package com.appsoil.solvle.service;
+
+import com.appsoil.solvle.data.Word;
+import com.appsoil.solvle.data.WordFrequencyScore;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class TopScoresTest {
+
+    private final Word[] words = {new Word("aaa", 0), new Word("bbb", 1), new Word("ccc", 2), new Word("ddd", 3), new Word("eee", 4)};
+
+    @Test
+    void offer_tiedScores_keepsLowestOrdering() {
+        TopScores top = new TopScores(3);
+        double[] scores = {1, 2, 2, 5, 2};
+        for (int i = 0; i < scores.length; i++) {
+            top.offer(scores[i], words[i].getOrder(), i);
+        }
+
+        Assertions.assertEquals(List.of("ddd", "bbb", "ccc"),
+                top.toWordFrequencyScores(words).stream().map(WordFrequencyScore::word).toList());
+        Assertions.assertEquals(2.0, top.min());
+    }
+
+    @Test
+    void addAll_otherHeap_mergesTopScores() {
+        TopScores first = new TopScores(2);
+        first.offer(1, 0, 0);
+        first.offer(4, 1, 1);
+        TopScores second = new TopScores(2);
+        second.offer(3, 2, 2);
+        second.offer(2, 3, 3);
+
+        first.addAll(second);
+
+        Assertions.assertTrue(first.isFull());
+        Assertions.assertEquals(3.0, first.min());
+    }
+}
@@ -0,0 +1,42 @@
+package com.appsoil.solvle.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class TopTuplesTest {
+
+    @Test
+    void offer_moreThanCapacity_keepsHighestScores() {
+        TopTuples top = new TopTuples(3, 2);
+        double[] scores = {5, 1, 9, 3, 7, 2};
+        for (int i = 0; i < scores.length; i++) {
+            top.offer(scores[i], new int[]{i, i + 10});
+        }
+
+        Map<Double, Integer> kept = new HashMap<>();
+        for (int slot = 0; slot < top.size(); slot++) {
+            Assertions.assertEquals(top.wordIndex(slot, 0) + 10, top.wordIndex(slot, 1));
+            kept.put(top.score(slot), top.wordIndex(slot, 0));
+        }
+        Assertions.assertEquals(Map.of(9.0, 2, 7.0, 4, 5.0, 0), kept);
+        Assertions.assertEquals(5.0, top.min());
+    }
+
+    @Test
+    void addAll_otherHeap_mergesTopScores() {
+        TopTuples first = new TopTuples(2, 1);
+        first.offer(1, new int[]{1});
+        first.offer(4, new int[]{4});
+        TopTuples second = new TopTuples(2, 1);
+        second.offer(3, new int[]{3});
+        second.offer(2, new int[]{2});
+
+        first.addAll(second);
+
+        Assertions.assertTrue(first.isFull());
+        Assertions.assertEquals(3.0, first.min());
+    }
+}
@@ -0,0 +1,74 @@
+package com.appsoil.solvle.service;
+
+import com.appsoil.solvle.data.CharacterCounts;
+import com.appsoil.solvle.data.Word;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TupleSearchTest {
+
+    private final List<Word> candidates = Stream.of("crane", "doubt", "fight", "lumpy", "whisk", "glyph", "spent", "board",
+            "quick", "mixed", "jolty", "frown", "blitz", "champ", "dwarf").map(Word::new).toList();
+    private final Set<Word> solutions = Stream.of("crane", "crate", "trace", "doubt", "fight", "eight", "night", "board",
+            "spent", "champ", "slate", "stone").map(Word::new).collect(Collectors.toSet());
+
+    @ParameterizedTest
+    @CsvSource({
+            "1, 5",
+            "2, 10",
+            "3, 10",
+            "3, 1"})
+    void search_pruned_matchesExhaustiveAndBruteForce(int tupleSize, int topN) {
+        WordCalculationService service = new WordCalculationService(WordCalculationConfig.OPTIMAL_MEAN);
+        CharacterCounts counts = service.calculateCharacterCountsByPosition(solutions);
+        Assertions.assertTrue(service.isTupleScoreSubadditive(5));
+
+        TupleSearch pruned = new TupleSearch(candidates, service.tupleFreqScorer(counts, solutions.size(), 5), tupleSize, topN, true);
+        TupleSearch exhaustive = new TupleSearch(candidates, service.tupleFreqScorer(counts, solutions.size(), 5), tupleSize, topN, false);
+        List<Double> prunedScores = new ArrayList<>(pruned.search().values());
+        List<Double> exhaustiveScores = new ArrayList<>(exhaustive.search().values());
+
+        List<Double> bruteForceScores = new ArrayList<>();
+        addTuples(new ArrayList<>(), 0, tupleSize, tuple -> bruteForceScores.add(service.calculateTupleFreqScoreByPosition(new HashSet<>(tuple), counts, solutions, 5)));
+        bruteForceScores.sort(Comparator.reverseOrder());
+
+        assertScoresEqual(bruteForceScores.subList(0, topN), exhaustiveScores);
+        assertScoresEqual(bruteForceScores.subList(0, topN), prunedScores);
+        Assertions.assertTrue(pruned.evaluated() <= exhaustive.evaluated());
+    }
+
+    /**
+     * Every combination of candidates without a letter in common, the same rule the search uses for up to four words
+     */
+    private void addTuples(List<Word> tuple, int from, int tupleSize, Consumer<List<Word>> onTuple) {
+        if (tuple.size() == tupleSize) {
+            onTuple.accept(tuple);
+            return;
+        }
+        long used = tuple.stream().mapToLong(Word::letterMask).reduce(0, (a, b) -> a | b);
+        for (int i = from; i < candidates.size(); i++) {
+            if ((candidates.get(i).letterMask() & used) == 0) {
+                tuple.add(candidates.get(i));
+                addTuples(tuple, i + 1, tupleSize, onTuple);
+                tuple.remove(tuple.size() - 1);
+            }
+        }
+    }
+
+    private static void assertScoresEqual(List<Double> expected, List<Double> actual) {
+        Assertions.assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assertions.assertEquals(expected.get(i), actual.get(i), 1e-9);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.appsoil.solvle.service;
 
+import com.appsoil.solvle.data.CharacterCounts;
 import com.appsoil.solvle.data.Dictionary;
+import com.appsoil.solvle.data.PartitionStats;
 import com.appsoil.solvle.data.Word;
 import com.appsoil.solvle.data.WordFrequencyScore;
 import com.appsoil.solvle.data.WordRestrictions;
@@ -11,9 +13,10 @@ import org.junit.jupiter.params.provider.CsvSource;
 
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -27,17 +30,30 @@ public class WordCalculationServiceTest {
 
     @Test
     void calculateCharacterCounts_allLettersPresent_countsCorrectly() {
-        Map<Character, LongAdder> counts = wordCalculationService.calculateCharacterCounts(ALL_LETTERS_WORD_SET);
+        CharacterCounts counts = wordCalculationService.calculateCharacterCounts(ALL_LETTERS_WORD_SET);
 
         ALPHABET_SET.forEach(c -> {
             if(CHARACTERS_IN_TWO_WORDS.contains(c)) {
-                Assertions.assertEquals(2, counts.get(c).intValue());
+                Assertions.assertEquals(2, counts.total(c));
             } else {
-                Assertions.assertEquals(1, counts.get(c).intValue());
+                Assertions.assertEquals(1, counts.total(c));
             }
         });
     }
 
+    @Test
+    void calculateCharacterCountsByPosition_mixedLetters_countsEachPosition() {
+        CharacterCounts counts = wordCalculationService.calculateCharacterCountsByPosition(Stream.of("geese", "eerie", "AB", "BA").map(Word::new).collect(Collectors.toSet()));
+
+        Assertions.assertEquals(1, counts.count(0, 'g'));
+        Assertions.assertEquals(2, counts.count(1, 'e'));
+        Assertions.assertEquals(2, counts.count(4, 'e'));
+        Assertions.assertEquals(1, counts.count(0, 'A'));
+        Assertions.assertEquals(0, counts.count(2, 'A'));
+        Assertions.assertEquals(6, counts.toMap().get('e').intValue());
+        Assertions.assertEquals(2, counts.toMap().get('B').intValue());
+    }
+
     @ParameterizedTest
     @CsvSource({
             "later, alert, 1.0",
@@ -45,7 +61,7 @@ public class WordCalculationServiceTest {
             "abcde, aaaaa, 0.2",
             "abcde, fghij, 0.0"})
     void calculateViableResults_singleSourceAndWord_returnsNumberOfSourceCharacters(String sourceWord, String viableWord, double score) {
-        Map<Character, LongAdder> counts = wordCalculationService.calculateCharacterCounts(Set.of(new Word(sourceWord)));
+        CharacterCounts counts = wordCalculationService.calculateCharacterCounts(Set.of(new Word(sourceWord)));
         Set<Word> viableWords = Set.of(new Word(viableWord));
 
         Set<WordFrequencyScore> scores = wordCalculationService.calculateViableWords(viableWords, counts, 1, 0, 100, new HashMap<>());
@@ -53,6 +69,23 @@ public class WordCalculationServiceTest {
         Assertions.assertEquals(score, scores.stream().findFirst().get().freqScore());
     }
 
+    @ParameterizedTest
+    @CsvSource({
+            "1, 1.0, 1",
+            "2, 1.5, 2",
+            "4, 2.083333333333333, 4",
+            "40000, 11.17386289794552, 40000"})
+    void harmonic_useHarmonic_returnsHarmonicNumberOtherwiseCount(int n, double harmonicNumber, double count) {
+        WordCalculationConfig base = WordCalculationConfig.SIMPLE;
+        WordCalculationConfig harmonicConfig = new WordCalculationConfig(base.rightLocationMultiplier(), base.uniquenessMultiplier(),
+                base.partitionThreshold(), base.viableWordPreference(), true, base.fishingThreshold(), base.hardMode(), base.requireAnswer(),
+                base.locationAdjustmentScale(), base.uniqueAdjustmentScale(), base.viableWordAdjustmentScale(), base.vowelMultiplier(),
+                base.rutBreakMultiplier(), base.rutBreakThreshold());
+
+        Assertions.assertEquals(harmonicNumber, new WordCalculationService(harmonicConfig).harmonic(n), 1e-9);
+        Assertions.assertEquals(count, new WordCalculationService(base).harmonic(n));
+    }
+
     @ParameterizedTest
     @CsvSource({
             "later, alert, 1.0, a",
@@ -62,7 +95,7 @@ public class WordCalculationServiceTest {
             "abcde, aahij, 0.0, a",
             "abcde, fghij, 0.0, g"})
     void calculateFishingWords_singleSourceAndWord_excludesCharactersFromCount(String sourceWord, String viableWord, double score, Character requiredChar) {
-        Map<Character, LongAdder> counts = wordCalculationService.calculateCharacterCounts(Set.of(new Word(sourceWord)));
+        CharacterCounts counts = wordCalculationService.calculateCharacterCounts(Set.of(new Word(sourceWord)));
         Set<Word> viableWords = Set.of(new Word(viableWord));
 
         Set<WordFrequencyScore> scores = wordCalculationService.calculateFishingWords(viableWords, counts, 1, 100, Set.of(requiredChar), new HashMap<>());
@@ -119,6 +152,30 @@ public class WordCalculationServiceTest {
         System.out.println(scores.toString());
     }
 
+    @ParameterizedTest
+    @CsvSource({
+            "1, ''",
+            "3, ''",
+            "5, C1",
+            "50, A1E",
+            "3, E!3AT"})
+    void calculateViableWordsByPosition_limited_matchesScoringEveryWord(int sizeLimit, String restrictionString) {
+        Set<Word> allWords = getFormattedWords(Stream.of("crane", "crate", "trace", "react", "caret", "doubt", "fight", "eight", "night", "geese", "eerie", "cable", "tacit", "cater")
+                .map(Word::new).collect(Collectors.toSet()));
+        Set<Word> viableWords = allWords.stream().filter(word -> word.word().contains("a")).collect(Collectors.toSet());
+        WordRestrictions restrictions = new WordRestrictions(restrictionString);
+        CharacterCounts counts = wordCalculationService.calculateCharacterCountsByPosition(viableWords);
+
+        List<WordFrequencyScore> expected = allWords.stream()
+                .map(word -> new WordFrequencyScore(word.getOrder(), word.word(),
+                        wordCalculationService.calculateFreqScoreByPosition(word, counts, viableWords, 5, restrictions, new HashMap<>()), null))
+                .sorted().limit(sizeLimit).toList();
+        Set<WordFrequencyScore> actual = wordCalculationService.calculateViableWordsByPosition(allWords, counts, viableWords, 0, sizeLimit, restrictions, new HashMap<>());
+
+        Assertions.assertEquals(expected, List.copyOf(actual));
+        Assertions.assertEquals(expected.stream().map(WordFrequencyScore::freqScore).toList(), actual.stream().map(WordFrequencyScore::freqScore).toList());
+    }
+
     private static Set<Word> getFormattedWords(Set<Word> words) {
         int size = words.stream().findFirst().get().getLength();
         var wordMap = Map.of(size, words);
@@ -126,4 +183,66 @@ public class WordCalculationServiceTest {
         return d.wordsBySize().get(size);
     }
 
+    @ParameterizedTest
+    @CsvSource({
+            "basis, 1.25, 7, 2.75",
+            "sassy, 3.5, 4, 1.5487949406953985"})
+    void getPartitionStatsForWord_repeatedLetters_groupsByFeedback(String guess, double wordsRemaining, int groupCount, double entropy) {
+        //sassy's extra s is yellow against basis where oases and vases leave it gray, so they are separate groups
+        Set<Word> solutions = Stream.of("basis", "oasis", "bases", "sassy", "abyss", "sisal", "oases", "vases")
+                .map(Word::new).collect(Collectors.toSet());
+
+        PartitionStats stats = wordCalculationService.getPartitionStatsForWord(solutions, new Word(guess));
+
+        Assertions.assertEquals(wordsRemaining, stats.wordsRemaining(), 1e-9);
+        Assertions.assertEquals(groupCount, stats.groupCount());
+        Assertions.assertEquals(entropy, stats.entropy(), 1e-9);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "'', crane",
+            "crane, doubt",
+            "crane;doubt, fight",
+            "fight;doubt, crane",
+            "geese, eerie"})
+    void getPartitionStatsForTuple_partitionPlusWord_matchesWholeTuple(String tupleString, String newWord) {
+        Set<Word> solutions = Stream.of("crane", "crate", "trace", "doubt", "fight", "eight", "night", "geese", "eerie", "cable", "zesty", "abbey")
+                .map(Word::new).collect(Collectors.toSet());
+        Set<Word> tuple = tupleString.isEmpty() ? Set.of() : Arrays.stream(tupleString.split(";")).map(Word::new).collect(Collectors.toSet());
+        Set<Word> fullTuple = Stream.concat(tuple.stream(), Stream.of(new Word(newWord))).collect(Collectors.toSet());
+
+        PartitionStats expected = wordCalculationService.getPartitionStatsForTuple(solutions, fullTuple);
+        PartitionStats actual = wordCalculationService.getPartitionStatsForTuple(wordCalculationService.getTuplePartition(solutions, tuple), new Word(newWord));
+
+        Assertions.assertEquals(expected.groupCount(), actual.groupCount());
+        Assertions.assertEquals(expected.wordsRemaining(), actual.wordsRemaining(), 1e-9);
+        Assertions.assertEquals(expected.entropy(), actual.entropy(), 1e-9);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "crane",
+            "crane;doubt",
+            "crane;doubt;fight",
+            "crane;crate",
+            "crane;trace;crate;eerie",
+            "geese;eerie"})
+    void tupleFreqScorer_extendedWordByWord_matchesTupleScore(String tupleString) {
+        Set<Word> solutions = Stream.of("crane", "crate", "trace", "doubt", "fight", "eight", "night", "geese", "eerie", "cable")
+                .map(Word::new).collect(Collectors.toSet());
+        WordCalculationService service = new WordCalculationService(WordCalculationConfig.OPTIMAL_MEAN.withFineTuning(0, 0.5, 0, 0.7));
+        CharacterCounts counts = service.calculateCharacterCountsByPosition(solutions);
+        List<Word> tuple = Arrays.stream(tupleString.split(";")).map(Word::new).toList();
+
+        TupleFreqScorer scorer = service.tupleFreqScorer(counts, solutions.size(), 5);
+        TupleFreqScorer.Partial partial = scorer.empty();
+        for (Word word : tuple) {
+            TupleFreqScorer.Partial next = scorer.empty();
+            scorer.extend(partial, word, next);
+            partial = next;
+        }
+
+        Assertions.assertEquals(service.calculateTupleFreqScoreByPosition(new HashSet<>(tuple), counts, solutions, 5), partial.score(), 1e-9);
+    }
 }